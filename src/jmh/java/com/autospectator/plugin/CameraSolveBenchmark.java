@@ -0,0 +1,176 @@
+package com.autospectator.plugin;
+
+import org.bukkit.World;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.invoke.VarHandle;
+import java.lang.reflect.Field;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * One camera solve of a session on the fake server, per solver: the followup
+ * orbit, the cinematic search and the orbit around a death location. Only the
+ * search for a pose is timed, not the teleport and action bar that follow it.
+ * Run it with {@code -prof gc}: {@code gc.alloc.rate.norm} is the allocation
+ * per solve and should be 0.
+ * <p>
+ * Solves cycle through seeded places over the pillars of a {@link FakeWorld},
+ * all in one region of the viewpoint cache, which is on as in the default
+ * config. The cinematic camera first films every place once so the cache has
+ * spots to offer, then each solve starts with the cached spots, as it does
+ * whenever the view gets blocked.
+ * <p>
+ * The solvers are private to {@link SpectatorManager}, so they are called
+ * through reflection; everything else goes through commands and the scheduler.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules=jdk.incubator.vector", "-XX:+EnableDynamicAgentLoading"})
+public class CameraSolveBenchmark {
+
+    private static final int PLACES = 1024;
+    // Inside region 0,0 with a chunk to spare, so every place shares one cached region
+    private static final double AREA_MIN = 24;
+    private static final double AREA_MAX = 488;
+
+    @Param({"followup", "cinematic", "death"})
+    public String solver;
+
+    @Param({"true", "false"})
+    public boolean simd;
+
+    private Path dataFolder;
+    private FakeServer server;
+    private Main plugin;
+    private FakeWorld world;
+    private SpectatorManager manager;
+    private Object session;
+    private MethodHandle solveFollowup;
+    private MethodHandle solveCinematic;
+    private MethodHandle solveDeathOrbit;
+    private int solverId;
+    private double[] places;
+    private int next = 0;
+
+    @Setup
+    public void setUp() throws Throwable {
+        dataFolder = Files.createTempDirectory("autospectator-bench");
+        server = FakeServer.start();
+        world = server.createWorld("world", 42L);
+        plugin = server.load(dataFolder.toFile());
+        plugin.getConfig().set("simd.enabled", simd);
+        plugin.getConfig().set("persistence.enabled", false);
+        plugin.getConfig().set("metrics.random-seed", 42L);
+        server.enable(plugin);
+
+        FakePlayer target = server.join("Target", new UUID(0, 1), world, AREA_MIN, FakeWorld.GROUND_Y, AREA_MIN);
+        FakePlayer camera = server.join("Camera", new UUID(0, 2), world, AREA_MIN, FakeWorld.GROUND_Y, AREA_MIN + 10);
+        camera.setOp(true);
+        server.dispatchCommand(camera, "autospectate");
+        server.dispatchCommand(camera, "autospectate perspective cinematic");
+        server.dispatchCommand(camera, "autospectate Target");
+
+        Field managerField = Main.class.getDeclaredField("spectatorManager");
+        managerField.setAccessible(true);
+        Field sessionsField = SpectatorManager.class.getDeclaredField("sessions");
+        sessionsField.setAccessible(true);
+        manager = (SpectatorManager) managerField.get(plugin);
+        session = ((Map<?, ?>) sessionsField.get(manager)).get(camera.getUniqueId());
+
+        Class<?> sessionClass = session.getClass();
+        MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(sessionClass, MethodHandles.lookup());
+        MethodType solve = MethodType.methodType(boolean.class, World.class, double.class, double.class, double.class);
+        solveFollowup = lookup.findVirtual(sessionClass, "solveFollowup", solve)
+            .asType(MethodType.methodType(boolean.class, Object.class, World.class, double.class, double.class, double.class));
+        solveCinematic = lookup.findVirtual(sessionClass, "solveCinematic", solve)
+            .asType(MethodType.methodType(boolean.class, Object.class, World.class, double.class, double.class, double.class));
+        solveDeathOrbit = lookup.findVirtual(sessionClass, "solveDeathOrbit", solve.changeReturnType(int.class))
+            .asType(MethodType.methodType(int.class, Object.class, World.class, double.class, double.class, double.class));
+        solverId = switch (solver) {
+            case "followup" -> 0;
+            case "cinematic" -> 1;
+            case "death" -> 2;
+            default -> throw new IllegalArgumentException("Unknown solver " + solver);
+        };
+
+        Random random = new Random(42);
+        places = new double[PLACES * 2];
+        for (int i = 0; i < places.length; i++) {
+            places[i] = AREA_MIN + random.nextDouble() * (AREA_MAX - AREA_MIN);
+        }
+        warmViewpointCache(target, lookup.findVarHandle(sessionClass, "hasCinematicPose", boolean.class));
+    }
+
+    // Films every place with the cinematic camera, once to load the region and once to record spots in it
+    private void warmViewpointCache(FakePlayer target, VarHandle hasCinematicPose) throws ReflectiveOperationException, InterruptedException {
+        for (int pass = 0; pass < 2; pass++) {
+            for (int place = 0; place < PLACES; place++) {
+                target.moveTo(places[place * 2], FakeWorld.GROUND_Y, places[place * 2 + 1]);
+                hasCinematicPose.set(session, false);
+                server.getScheduler().tick();
+            }
+            // The region is read in the background and handed over on a later tick
+            for (int wait = 0; wait < 100 && pass == 0; wait++) {
+                Thread.sleep(10);
+                server.getScheduler().tick();
+            }
+        }
+
+        Field cacheField = SpectatorManager.class.getDeclaredField("viewpointCache");
+        cacheField.setAccessible(true);
+        List<ViewpointCache.Viewpoint> cached = new ArrayList<>();
+        ((ViewpointCache) cacheField.get(manager)).collectNearby(world, places[0], places[1], cached);
+        if (cached.isEmpty()) {
+            throw new IllegalStateException("The viewpoint cache has no spots near the first place");
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        server.disable(plugin);
+        try (Stream<Path> files = Files.walk(dataFolder)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    // Returns whether a pose was found, so nothing is optimised away
+    @Benchmark
+    public boolean solve() throws Throwable {
+        int place = next;
+        next = (next + 1) % PLACES;
+        double x = places[place * 2];
+        double z = places[place * 2 + 1];
+        return switch (solverId) {
+            case 0 -> (boolean) solveFollowup.invokeExact(session, (World) world, x, (double) FakeWorld.GROUND_Y, z);
+            case 1 -> (boolean) solveCinematic.invokeExact(session, (World) world, x, (double) FakeWorld.GROUND_Y, z);
+            default -> (int) solveDeathOrbit.invokeExact(session, (World) world, x, (double) FakeWorld.GROUND_Y, z) != -1;
+        };
+    }
+}
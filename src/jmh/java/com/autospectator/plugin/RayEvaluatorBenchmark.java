@@ -0,0 +1,124 @@
+package com.autospectator.plugin;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to place and walk the candidate rays of one camera search: 8 for the
+ * followup and death orbits, 15 for the cinematic search. {@code geometry} is
+ * the per-ray {@link CameraGeometry} tests the evaluators replaced, against the
+ * world directly; {@code scalar} and {@code vector} are the two evaluators over
+ * the voxel buffer. Searches cycle through seeded places over the pillars of a
+ * {@link FakeWorld}, so the results aren't one lucky layout.
+ * <p>
+ * A fake world answers a block lookup with a hash, far faster than a server
+ * reading a chunk section, so the time here is mostly the evaluator's own work.
+ * The block lookups per search are printed at the end of each run; on a server
+ * each one the voxel buffer saves comes on top of the difference measured here.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class RayEvaluatorBenchmark {
+
+    private static final int SEARCHES = 1024;
+
+    @Param({"geometry", "scalar", "vector"})
+    public String evaluator;
+
+    @Param({"8", "15"})
+    public int candidates;
+
+    private FakeWorld world;
+    private RayEvaluator rayEvaluator;
+    private boolean perRay;
+    private RayBatch rays;
+    private double[] centers;
+    private double[] shapes;
+    private int next = 0;
+    private long searches = 0;
+    private long lookupsBefore;
+
+    @Setup
+    public void setUp() {
+        world = Fakes.create(FakeWorld.class, "world", 42L);
+        // The geometry baseline places its candidates the scalar way too
+        rayEvaluator = evaluator.equals("vector") ? new VectorRayEvaluator() : new ScalarRayEvaluator();
+        perRay = evaluator.equals("geometry");
+        rays = new RayBatch(candidates);
+
+        Random random = new Random(42);
+        centers = new double[SEARCHES * 3];
+        shapes = new double[SEARCHES * candidates * 3];
+        for (int search = 0; search < SEARCHES; search++) {
+            centers[search * 3] = (random.nextDouble() - 0.5) * 2000;
+            centers[search * 3 + 1] = FakeWorld.GROUND_Y;
+            centers[search * 3 + 2] = (random.nextDouble() - 0.5) * 2000;
+            for (int i = 0; i < candidates; i++) {
+                int offset = (search * candidates + i) * 3;
+                shapes[offset] = random.nextDouble() * Math.PI * 2;
+                shapes[offset + 1] = 6 + random.nextDouble() * 3;
+                shapes[offset + 2] = -2 + random.nextDouble() * 8;
+            }
+        }
+        lookupsBefore = CameraGeometry.getBlockLookups();
+    }
+
+    @TearDown
+    public void printLookups() {
+        System.out.printf("%n%s, %d candidates: %.1f block lookups per search%n", evaluator, candidates,
+            (CameraGeometry.getBlockLookups() - lookupsBefore) / (double) searches);
+    }
+
+    // Returns the blocks in the way of all candidates, so nothing is optimised away
+    @Benchmark
+    public int search() {
+        int search = next;
+        next = (next + 1) % SEARCHES;
+        searches++;
+        double x = centers[search * 3];
+        double y = centers[search * 3 + 1];
+        double z = centers[search * 3 + 2];
+        double eyeY = y + 1.62;
+
+        rays.clear();
+        for (int i = 0; i < candidates; i++) {
+            int offset = (search * candidates + i) * 3;
+            rays.add(shapes[offset], shapes[offset + 1], shapes[offset + 2]);
+        }
+        rayEvaluator.place(rays, x, y, z, 0.5);
+        if (perRay) {
+            for (int i = 0; i < rays.size(); i++) {
+                if (CameraGeometry.isCameraInBlock(world, rays.getX(i), rays.getY(i), rays.getZ(i))) {
+                    rays.skip(i);
+                } else {
+                    rays.blocks[i] = CameraGeometry.countBlocksInLineOfSight(world, rays.getX(i), rays.getY(i), rays.getZ(i), x, eyeY, z);
+                }
+            }
+        } else {
+            rayEvaluator.countOccluders(world, rays, x, eyeY, z);
+        }
+
+        int blocks = 0;
+        for (int i = 0; i < rays.size(); i++) {
+            blocks += rays.getBlocks(i);
+        }
+        return blocks;
+    }
+}
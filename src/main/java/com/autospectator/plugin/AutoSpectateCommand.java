@@ -15,6 +15,25 @@ public class AutoSpectateCommand implements CommandExecutor {
 
     @Override
     public boolean onCommand(CommandSender sender, Command command, String label, String[] args) {
+        // Metrics can be read from the console during load tests
+        if (args.length > 0 && args[0].equalsIgnoreCase("stats")) {
+            if (args.length > 1 && args[1].equalsIgnoreCase("reset")) {
+                // Clears the numbers everyone else is reading, so it needs more than autospectator.use
+                if (!sender.hasPermission("autospectator.admin")) {
+                    sender.sendMessage("§cYou don't have permission to reset metrics.");
+                    return true;
+                }
+                spectatorManager.getMetrics().reset();
+                sender.sendMessage("§aMetrics reset.");
+            } else {
+                for (String line : spectatorManager.getMetrics().report()) {
+                    sender.sendMessage(line);
+                }
+                sender.sendMessage(spectatorManager.getLifecycleReport());
+            }
+            return true;
+        }
+
         if (!(sender instanceof Player)) {
             sender.sendMessage("Only players can use this command.");
             return true;
@@ -60,8 +79,8 @@ public class AutoSpectateCommand implements CommandExecutor {
                 }
                 break;
             default:
-                // Assume it's a player name
-                spectatorManager.setTarget(player, args[0]);
+                // Assume it's a player or entity name; entity names can have spaces, e.g. "Ender Dragon"
+                spectatorManager.setTarget(player, String.join(" ", args));
                 break;
         }
 
@@ -0,0 +1,33 @@
+package com.autospectator.plugin;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Entry point for other plugins, registered with Bukkit's ServicesManager:
+ *
+ * <pre>
+ * AutoSpectatorService service = Bukkit.getServicesManager().load(AutoSpectatorService.class);
+ * service.submitTrigger(ExternalTrigger.of(player.getUniqueId(), "Objective captured", ExternalTrigger.PRIORITY_HIGH, 5000));
+ * </pre>
+ *
+ * All methods are safe to call from any thread and never block. Requests are
+ * queued and applied on the next server tick; the returned futures complete on
+ * the main thread, so use the {@code *Async} variants of CompletableFuture for
+ * follow-up work that should not run there.
+ */
+public interface AutoSpectatorService {
+
+    CompletableFuture<TriggerResult> submitTrigger(ExternalTrigger trigger);
+
+    /**
+     * Submits several triggers at once. The future completes with one result per
+     * trigger, in iteration order, once all of them were processed.
+     */
+    CompletableFuture<List<TriggerResult>> submitTriggers(Collection<ExternalTrigger> triggers);
+
+    CompletableFuture<TriggerResult> forceTarget(ForcedTarget request);
+
+    CompletableFuture<List<TriggerResult>> forceTargets(Collection<ForcedTarget> requests);
+}
@@ -0,0 +1,154 @@
+package com.autospectator.plugin;
+
+import org.bukkit.Bukkit;
+import org.bukkit.plugin.IllegalPluginAccessException;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Queues requests from any thread in a lock-free queue and applies them to the
+ * {@link SpectatorManager} when it drains the queue on the tick. While the
+ * manager is idle its tick task is stopped, so a one-off drain is scheduled
+ * instead.
+ */
+public class AutoSpectatorServiceImpl implements AutoSpectatorService {
+
+    private final Main plugin;
+    private final SpectatorManager spectatorManager;
+    private final ConcurrentLinkedQueue<Submission> queue = new ConcurrentLinkedQueue<>();
+    private final int maxPerTick;
+    private volatile boolean closed = false;
+    private final AtomicBoolean idleDrainScheduled = new AtomicBoolean(false);
+
+    public AutoSpectatorServiceImpl(Main plugin, SpectatorManager spectatorManager) {
+        this.plugin = plugin;
+        this.spectatorManager = spectatorManager;
+        this.maxPerTick = Math.max(1, plugin.getConfig().getInt("api.max-requests-per-tick", 256));
+    }
+
+    private record Submission(Object request, CompletableFuture<TriggerResult> future) {
+    }
+
+    @Override
+    public CompletableFuture<TriggerResult> submitTrigger(ExternalTrigger trigger) {
+        return enqueue(trigger);
+    }
+
+    @Override
+    public CompletableFuture<List<TriggerResult>> submitTriggers(Collection<ExternalTrigger> triggers) {
+        return enqueueAll(triggers);
+    }
+
+    @Override
+    public CompletableFuture<TriggerResult> forceTarget(ForcedTarget request) {
+        return enqueue(request);
+    }
+
+    @Override
+    public CompletableFuture<List<TriggerResult>> forceTargets(Collection<ForcedTarget> requests) {
+        return enqueueAll(requests);
+    }
+
+    private CompletableFuture<TriggerResult> enqueue(Object request) {
+        if (request == null) throw new IllegalArgumentException("request cannot be null");
+
+        CompletableFuture<TriggerResult> future = new CompletableFuture<>();
+        if (closed) {
+            future.complete(TriggerResult.SHUT_DOWN);
+            return future;
+        }
+        queue.offer(new Submission(request, future));
+        // Closed while we were adding, make sure nothing is left waiting
+        if (closed) {
+            rejectPending();
+        } else if (!spectatorManager.isActive()) {
+            drainWhileIdle();
+        }
+        return future;
+    }
+
+    private CompletableFuture<List<TriggerResult>> enqueueAll(Collection<?> requests) {
+        List<CompletableFuture<TriggerResult>> futures = new ArrayList<>(requests.size());
+        for (Object request : requests) {
+            futures.add(enqueue(request));
+        }
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+            .thenApply(done -> {
+                List<TriggerResult> results = new ArrayList<>(futures.size());
+                for (CompletableFuture<TriggerResult> future : futures) {
+                    results.add(future.join());
+                }
+                return results;
+            });
+    }
+
+    /**
+     * Applies queued requests on the main thread. A bounded number is handled per
+     * call so a flood of submissions is spread over several ticks.
+     */
+    public void drain() {
+        long now = System.currentTimeMillis();
+        Submission submission;
+        for (int i = 0; i < maxPerTick && (submission = queue.poll()) != null; i++) {
+            try {
+                submission.future().complete(apply(submission.request(), now));
+            } catch (RuntimeException e) {
+                submission.future().completeExceptionally(e);
+            }
+        }
+    }
+
+    /**
+     * Schedules a drain on the next tick if requests are waiting and no tick
+     * task is running to pick them up. Safe to call from any thread; the
+     * manager also calls it when going idle, so a request queued while it was
+     * still active is not left behind.
+     */
+    public void drainWhileIdle() {
+        if (closed || !hasPending() || !idleDrainScheduled.compareAndSet(false, true)) return;
+        try {
+            Bukkit.getScheduler().runTask(plugin, () -> {
+                idleDrainScheduled.set(false);
+                // Woke up in the meantime, the tick task drains from now on
+                if (spectatorManager.isActive()) return;
+                drain();
+                drainWhileIdle();
+            });
+        } catch (IllegalPluginAccessException e) {
+            // Submitted from another thread while the plugin is being disabled
+            idleDrainScheduled.set(false);
+            rejectPending();
+        }
+    }
+
+    public boolean hasPending() {
+        return !queue.isEmpty();
+    }
+
+    private TriggerResult apply(Object request, long now) {
+        if (request instanceof ExternalTrigger trigger) {
+            if (trigger.isExpired(now)) return TriggerResult.EXPIRED;
+            return spectatorManager.handleExternalTrigger(trigger);
+        }
+        ForcedTarget forced = (ForcedTarget) request;
+        if (forced.isExpired(now)) return TriggerResult.EXPIRED;
+        return spectatorManager.handleForcedTarget(forced);
+    }
+
+    public void close() {
+        closed = true;
+        rejectPending();
+    }
+
+    private void rejectPending() {
+        Submission submission;
+        while ((submission = queue.poll()) != null) {
+            submission.future().complete(TriggerResult.SHUT_DOWN);
+        }
+    }
+}
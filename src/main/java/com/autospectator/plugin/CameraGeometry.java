@@ -0,0 +1,121 @@
+package com.autospectator.plugin;
+
+import org.bukkit.World;
+import org.bukkit.block.Block;
+
+/**
+ * Block tests used by the camera solvers, written against primitive coordinates
+ * so that probing a candidate position does not allocate Locations or Vectors.
+ */
+public final class CameraGeometry {
+
+    // Hull of the camera tested by isCameraInBlock
+    static final double CAMERA_HALF_WIDTH = 0.35;
+    static final double CAMERA_HEIGHT = 1.7;
+
+    // Main thread only; read before and after a solve to report blocks sampled
+    private static long blockLookups = 0;
+
+    private CameraGeometry() {
+    }
+
+    public static boolean isBlockSolid(World world, double x, double y, double z) {
+        return isBlockSolid(world, floor(x), floor(y), floor(z));
+    }
+
+    public static long getBlockLookups() {
+        return blockLookups;
+    }
+
+    public static boolean isBlockSolid(World world, int x, int y, int z) {
+        blockLookups++;
+        Block block = world.getBlockAt(x, y, z);
+        return block.getType().isSolid() && !block.isPassable();
+    }
+
+    public static boolean isCameraInBlock(World world, double x, double y, double z) {
+        // Check feet, mid-body, and head/eye level
+        if (isBlockSolid(world, x, y, z) ||
+            isBlockSolid(world, x, y + 1.0, z) ||
+            isBlockSolid(world, x, y + CAMERA_HEIGHT, z)) {
+            return true;
+        }
+
+        // Check width at feet level
+        if (isBlockSolid(world, x + CAMERA_HALF_WIDTH, y, z) ||
+            isBlockSolid(world, x - CAMERA_HALF_WIDTH, y, z) ||
+            isBlockSolid(world, x, y, z + CAMERA_HALF_WIDTH) ||
+            isBlockSolid(world, x, y, z - CAMERA_HALF_WIDTH)) {
+            return true;
+        }
+
+        // Check width at head level (to prevent head clipping into walls)
+        double headY = y + 1.6;
+        return isBlockSolid(world, x + CAMERA_HALF_WIDTH, headY, z) ||
+            isBlockSolid(world, x - CAMERA_HALF_WIDTH, headY, z) ||
+            isBlockSolid(world, x, headY, z + CAMERA_HALF_WIDTH) ||
+            isBlockSolid(world, x, headY, z - CAMERA_HALF_WIDTH);
+    }
+
+    public static int countBlocksInLineOfSight(World world, double fromX, double fromY, double fromZ,
+                                               double toX, double toY, double toZ) {
+        double dx = toX - fromX;
+        double dy = toY - fromY;
+        double dz = toZ - fromZ;
+        double distance = Math.sqrt(dx * dx + dy * dy + dz * dz);
+        if (distance == 0) return 0;
+        dx /= distance;
+        dy /= distance;
+        dz /= distance;
+
+        SpectatorEvents.OcclusionWalk event = new SpectatorEvents.OcclusionWalk();
+        event.begin();
+
+        int blockCount = 0;
+        int sampled = 0;
+        // Check blocks along the line from camera to target
+        for (double d = 0.5; d < distance; d += 0.5) {
+            sampled++;
+            if (isBlockSolid(world, fromX + dx * d, fromY + dy * d, fromZ + dz * d)) {
+                blockCount++;
+            }
+        }
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.rays = 1;
+            event.distance = distance;
+            event.blocksSampled = sampled;
+            event.solidBlocks = blockCount;
+            event.commit();
+        }
+        return blockCount;
+    }
+
+    public static boolean isInTightSpace(World world, int blockX, int blockY, int blockZ) {
+        // Count air/transparent blocks in a 3x3x3 area around the target
+        int emptyBlocks = 0;
+        int totalBlocks = 0;
+
+        for (int x = -1; x <= 1; x++) {
+            for (int y = 0; y <= 2; y++) {
+                for (int z = -1; z <= 1; z++) {
+                    totalBlocks++;
+                    if (!isBlockSolid(world, blockX + x, blockY + y, blockZ + z)) {
+                        emptyBlocks++;
+                    }
+                }
+            }
+        }
+
+        // If less than 50% of the space is empty, it's a tight space
+        // A 2x1 tunnel would have about 2/3 empty (the player's column and above)
+        // A normal open area would have much more empty space
+        return emptyBlocks < (totalBlocks * 0.5);
+    }
+
+    public static int floor(double value) {
+        int i = (int) value;
+        return value < i ? i - 1 : i;
+    }
+}
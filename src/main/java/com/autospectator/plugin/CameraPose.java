@@ -0,0 +1,50 @@
+package com.autospectator.plugin;
+
+import org.bukkit.Location;
+import org.bukkit.World;
+
+/**
+ * Mutable camera position and rotation kept in primitive fields so the solvers
+ * can reuse one instance per session instead of cloning Locations every tick.
+ */
+public final class CameraPose {
+
+    public double x, y, z;
+    public float yaw, pitch;
+
+    public CameraPose set(double x, double y, double z) {
+        this.x = x;
+        this.y = y;
+        this.z = z;
+        return this;
+    }
+
+    // Same convention as Location.setDirection
+    public CameraPose lookAt(double tx, double ty, double tz) {
+        double dx = tx - x;
+        double dy = ty - y;
+        double dz = tz - z;
+
+        if (dx == 0 && dz == 0) {
+            pitch = dy > 0 ? -90 : 90;
+            return this;
+        }
+
+        double theta = Math.atan2(-dx, dz);
+        yaw = (float) Math.toDegrees((theta + 2 * Math.PI) % (2 * Math.PI));
+        pitch = (float) Math.toDegrees(Math.atan(-dy / Math.sqrt(dx * dx + dz * dz)));
+        return this;
+    }
+
+    public double distanceSquared(double ox, double oy, double oz) {
+        double dx = x - ox;
+        double dy = y - oy;
+        double dz = z - oz;
+        return dx * dx + dy * dy + dz * dz;
+    }
+
+    // The only place the camera path creates a Location, right before teleporting
+    public Location toLocation(World world) {
+        return new Location(world, x, y, z, yaw, pitch);
+    }
+}
@@ -0,0 +1,37 @@
+package com.autospectator.plugin;
+
+import java.util.UUID;
+
+/**
+ * A moment another plugin wants filmed. Triggers from {@link SpectatorListener}
+ * run at {@link #PRIORITY_NORMAL}; a higher priority interrupts death spectating
+ * and trigger cooldowns, a lower one never replaces a higher-priority shot. Any
+ * priority, {@link #PRIORITY_LOW} included, replaces a camera's routine rotation.
+ *
+ * @param target          player or tracked entity to film
+ * @param reason          short description shown in logs and recordings
+ * @param priority        relative importance of the moment
+ * @param expiresAtMillis wall-clock time after which the trigger is dropped
+ *                        unprocessed, or 0 to never expire
+ */
+public record ExternalTrigger(UUID target, String reason, int priority, long expiresAtMillis) {
+
+    public static final int PRIORITY_LOW = -10;
+    public static final int PRIORITY_NORMAL = 0;
+    public static final int PRIORITY_HIGH = 10;
+
+    public ExternalTrigger {
+        if (target == null) throw new IllegalArgumentException("target cannot be null");
+        if (reason == null) throw new IllegalArgumentException("reason cannot be null");
+    }
+
+    // A ttl of zero or less never expires, like an expiresAtMillis of 0
+    public static ExternalTrigger of(UUID target, String reason, int priority, long ttlMillis) {
+        long expiresAtMillis = ttlMillis > 0 ? System.currentTimeMillis() + ttlMillis : 0;
+        return new ExternalTrigger(target, reason, priority, expiresAtMillis);
+    }
+
+    public boolean isExpired(long nowMillis) {
+        return expiresAtMillis != 0 && nowMillis > expiresAtMillis;
+    }
+}
@@ -0,0 +1,27 @@
+package com.autospectator.plugin;
+
+import java.util.UUID;
+
+/**
+ * Asks auto-mode cameras to hold on a target for a while, bypassing death
+ * spectating and trigger cooldowns unless a higher-priority shot is running.
+ * Sessions go back to their normal cycle afterwards.
+ *
+ * @param spectator       camera account to steer, or null for every auto-mode session
+ * @param target          player or tracked entity to film
+ * @param priority        relative importance, see {@link ExternalTrigger}
+ * @param holdSeconds     how long to stay on the target
+ * @param expiresAtMillis wall-clock time after which the request is dropped
+ *                        unprocessed, or 0 to never expire
+ */
+public record ForcedTarget(UUID spectator, UUID target, int priority, int holdSeconds, long expiresAtMillis) {
+
+    public ForcedTarget {
+        if (target == null) throw new IllegalArgumentException("target cannot be null");
+        if (holdSeconds <= 0) throw new IllegalArgumentException("holdSeconds must be positive");
+    }
+
+    public boolean isExpired(long nowMillis) {
+        return expiresAtMillis != 0 && nowMillis > expiresAtMillis;
+    }
+}
@@ -1,11 +1,24 @@
 package com.autospectator.plugin;
 
+import org.bukkit.plugin.PluginDescriptionFile;
+import org.bukkit.plugin.ServicePriority;
 import org.bukkit.plugin.java.JavaPlugin;
+import org.bukkit.plugin.java.JavaPluginLoader;
+
+import java.io.File;
 
 public class Main extends JavaPlugin {
 
     private SpectatorManager spectatorManager;
 
+    public Main() {
+    }
+
+    // Lets the tests enable the plugin on a fake server, outside a plugin class loader
+    Main(JavaPluginLoader loader, PluginDescriptionFile description, File dataFolder, File file) {
+        super(loader, description, dataFolder, file);
+    }
+
     @Override
     public void onEnable() {
         // Load config
@@ -17,6 +30,9 @@ public class Main extends JavaPlugin {
         // Register commands
         getCommand("autospectate").setExecutor(new AutoSpectateCommand(this, spectatorManager));
 
+        // Expose the API to other plugins
+        getServer().getServicesManager().register(AutoSpectatorService.class, spectatorManager.getService(), this, ServicePriority.Normal);
+
         // Register listeners
         getServer().getPluginManager().registerEvents(new SpectatorListener(this, spectatorManager), this);
 
@@ -26,6 +42,12 @@ public class Main extends JavaPlugin {
     @Override
     public void onDisable() {
         // Plugin shutdown logic
+        getServer().getServicesManager().unregisterAll(this);
+        if (spectatorManager != null) {
+            // Saves and ends every camera session, returning players to where they stood
+            // and restoring game modes and visibility
+            spectatorManager.shutdown();
+        }
         getLogger().info("AutoSpectator has been disabled!");
     }
 }
@@ -0,0 +1,318 @@
+package com.autospectator.plugin;
+
+import org.bukkit.Bukkit;
+import org.bukkit.GameMode;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.Player;
+
+import java.util.*;
+
+public class PlayerSpatialIndex {
+
+    private final int cellSize;
+    private final double clusterRadius;
+    private final int minClusterSize;
+    private final double maxClusterRadius;
+    private final double triggerBoost;
+    private final double heatDecay;
+
+    // world -> (cell key -> players in that column of cells)
+    private final Map<UUID, Map<Long, List<Entry>>> grid = new HashMap<>();
+    private final Map<UUID, Entry> entries = new HashMap<>();
+    private final Map<UUID, Double> heat = new HashMap<>();
+
+    private final List<Cluster> clusters = new ArrayList<>();
+    private final Map<UUID, Cluster> clusterByPlayer = new HashMap<>();
+    private int generation = 0;
+
+    public PlayerSpatialIndex(Main plugin) {
+        this.cellSize = Math.max(4, plugin.getConfig().getInt("group-shot.cell-size", 16));
+        this.clusterRadius = plugin.getConfig().getDouble("group-shot.cluster-radius", 12.0);
+        this.minClusterSize = Math.max(2, plugin.getConfig().getInt("group-shot.min-players", 2));
+        this.maxClusterRadius = plugin.getConfig().getDouble("group-shot.max-radius", 24.0);
+        this.triggerBoost = plugin.getConfig().getDouble("group-shot.trigger-boost", 1.0);
+        this.heatDecay = plugin.getConfig().getDouble("group-shot.heat-decay", 0.9);
+    }
+
+    private static final class Entry {
+        private final Player player;
+        private UUID worldId;
+        private long cellKey;
+        private double x, y, z;
+        private int seen;
+
+        private Entry(Player player) {
+            this.player = player;
+        }
+    }
+
+    public static final class Cluster {
+        private final List<Player> members = new ArrayList<>();
+        private double minX, minY, minZ, maxX, maxY, maxZ;
+        private double priority;
+        private World world;
+
+        public int size() {
+            return members.size();
+        }
+
+        public World getWorld() {
+            return world;
+        }
+
+        public double getCenterX() {
+            return (minX + maxX) * 0.5;
+        }
+
+        public double getCenterY() {
+            return (minY + maxY) * 0.5;
+        }
+
+        public double getCenterZ() {
+            return (minZ + maxZ) * 0.5;
+        }
+
+        // Radius of the sphere enclosing the bounding box (player height included)
+        public double getRadius() {
+            double dx = maxX - minX;
+            double dy = maxY - minY;
+            double dz = maxZ - minZ;
+            return 0.5 * Math.sqrt(dx * dx + dy * dy + dz * dz);
+        }
+
+        private void include(Entry e) {
+            if (members.isEmpty()) {
+                minX = maxX = e.x;
+                minY = e.y;
+                maxY = e.y + 1.8;
+                minZ = maxZ = e.z;
+            } else {
+                minX = Math.min(minX, e.x);
+                maxX = Math.max(maxX, e.x);
+                minY = Math.min(minY, e.y);
+                maxY = Math.max(maxY, e.y + 1.8);
+                minZ = Math.min(minZ, e.z);
+                maxZ = Math.max(maxZ, e.z);
+            }
+            members.add(e.player);
+        }
+    }
+
+    private long cellKey(double x, double z) {
+        long cx = (long) Math.floor(x / cellSize);
+        long cz = (long) Math.floor(z / cellSize);
+        return (cx << 32) | (cz & 0xffffffffL);
+    }
+
+    /**
+     * Updates player positions, moving only those that changed cell, then
+     * recomputes clusters and decays trigger heat.
+     */
+    public void refresh() {
+        generation++;
+
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            if (player.getGameMode() == GameMode.SPECTATOR || player.isDead()) continue;
+
+            Location loc = player.getLocation();
+            UUID worldId = loc.getWorld().getUID();
+            long key = cellKey(loc.getX(), loc.getZ());
+
+            Entry entry = entries.get(player.getUniqueId());
+            if (entry == null) {
+                entry = new Entry(player);
+                entries.put(player.getUniqueId(), entry);
+                entry.worldId = worldId;
+                entry.cellKey = key;
+                cellList(worldId, key).add(entry);
+            } else if (entry.cellKey != key || !entry.worldId.equals(worldId)) {
+                removeFromCell(entry);
+                entry.worldId = worldId;
+                entry.cellKey = key;
+                cellList(worldId, key).add(entry);
+            }
+            entry.x = loc.getX();
+            entry.y = loc.getY();
+            entry.z = loc.getZ();
+            entry.seen = generation;
+        }
+
+        // Drop players that left, died or became spectators
+        Iterator<Entry> it = entries.values().iterator();
+        while (it.hasNext()) {
+            Entry entry = it.next();
+            if (entry.seen != generation) {
+                removeFromCell(entry);
+                it.remove();
+            }
+        }
+
+        Iterator<Map.Entry<UUID, Double>> heatIt = heat.entrySet().iterator();
+        while (heatIt.hasNext()) {
+            Map.Entry<UUID, Double> h = heatIt.next();
+            double value = h.getValue() * heatDecay;
+            if (value < 0.01 || !entries.containsKey(h.getKey())) {
+                heatIt.remove();
+            } else {
+                h.setValue(value);
+            }
+        }
+
+        rebuildClusters();
+    }
+
+    // Drops a player that left right away rather than at the next refresh, so
+    // the index holds no reference to it in between
+    public void remove(UUID playerId) {
+        Entry entry = entries.remove(playerId);
+        if (entry != null) {
+            removeFromCell(entry);
+        }
+        heat.remove(playerId);
+
+        Cluster cluster = clusterByPlayer.remove(playerId);
+        if (cluster != null) {
+            cluster.members.removeIf(member -> member.getUniqueId().equals(playerId));
+            if (cluster.members.size() < minClusterSize) {
+                clusters.remove(cluster);
+                for (Player member : cluster.members) {
+                    clusterByPlayer.remove(member.getUniqueId());
+                }
+            }
+        }
+    }
+
+    public void clear() {
+        grid.clear();
+        entries.clear();
+        heat.clear();
+        clusters.clear();
+        clusterByPlayer.clear();
+    }
+
+    private List<Entry> cellList(UUID worldId, long key) {
+        return grid.computeIfAbsent(worldId, w -> new HashMap<>()).computeIfAbsent(key, k -> new ArrayList<>(4));
+    }
+
+    private void removeFromCell(Entry entry) {
+        Map<Long, List<Entry>> cells = grid.get(entry.worldId);
+        if (cells == null) return;
+        List<Entry> list = cells.get(entry.cellKey);
+        if (list == null) return;
+        list.remove(entry);
+        if (list.isEmpty()) {
+            cells.remove(entry.cellKey);
+        }
+    }
+
+    private void rebuildClusters() {
+        clusters.clear();
+        clusterByPlayer.clear();
+
+        Set<Entry> visited = new HashSet<>();
+        ArrayDeque<Entry> queue = new ArrayDeque<>();
+        List<Entry> neighbours = new ArrayList<>();
+        List<Entry> group = new ArrayList<>();
+
+        for (Entry start : entries.values()) {
+            if (!visited.add(start)) continue;
+
+            group.clear();
+            queue.add(start);
+            while (!queue.isEmpty()) {
+                Entry current = queue.poll();
+                group.add(current);
+                neighbours.clear();
+                query(current.worldId, current.x, current.y, current.z, clusterRadius, neighbours);
+                for (Entry n : neighbours) {
+                    if (visited.add(n)) {
+                        queue.add(n);
+                    }
+                }
+            }
+
+            if (group.size() < minClusterSize) continue;
+
+            Cluster cluster = new Cluster();
+            cluster.world = start.player.getWorld();
+            for (Entry e : group) {
+                cluster.include(e);
+                cluster.priority += heat.getOrDefault(e.player.getUniqueId(), 0.0);
+            }
+            // Too spread out to fit in a single shot
+            if (cluster.getRadius() > maxClusterRadius) continue;
+
+            clusters.add(cluster);
+            for (Player member : cluster.members) {
+                clusterByPlayer.put(member.getUniqueId(), cluster);
+            }
+        }
+    }
+
+    private void query(UUID worldId, double x, double y, double z, double radius, List<Entry> out) {
+        Map<Long, List<Entry>> cells = grid.get(worldId);
+        if (cells == null) return;
+
+        long minCx = (long) Math.floor((x - radius) / cellSize);
+        long maxCx = (long) Math.floor((x + radius) / cellSize);
+        long minCz = (long) Math.floor((z - radius) / cellSize);
+        long maxCz = (long) Math.floor((z + radius) / cellSize);
+        double radiusSq = radius * radius;
+
+        for (long cx = minCx; cx <= maxCx; cx++) {
+            for (long cz = minCz; cz <= maxCz; cz++) {
+                List<Entry> list = cells.get((cx << 32) | (cz & 0xffffffffL));
+                if (list == null) continue;
+                for (Entry e : list) {
+                    double dx = e.x - x;
+                    double dy = e.y - y;
+                    double dz = e.z - z;
+                    if (dx * dx + dy * dy + dz * dz <= radiusSq) {
+                        out.add(e);
+                    }
+                }
+            }
+        }
+    }
+
+    public void boost(Player player) {
+        UUID id = player.getUniqueId();
+        heat.merge(id, triggerBoost, Double::sum);
+        // Reflect the trigger right away instead of waiting for the next refresh
+        Cluster cluster = clusterByPlayer.get(id);
+        if (cluster != null) {
+            cluster.priority += triggerBoost;
+        }
+    }
+
+    public Cluster getCluster(Entity entity) {
+        return clusterByPlayer.get(entity.getUniqueId());
+    }
+
+    public Cluster getHottestCluster(double minPriority) {
+        Cluster best = null;
+        for (Cluster cluster : clusters) {
+            if (cluster.priority < minPriority) continue;
+            if (best == null || cluster.priority > best.priority) {
+                best = cluster;
+            }
+        }
+        return best;
+    }
+
+    // Member with the most recent trigger activity, used as the anchor of a group shot
+    public Player getHottestMember(Cluster cluster) {
+        Player best = cluster.members.get(0);
+        double bestHeat = -1;
+        for (Player member : cluster.members) {
+            double h = heat.getOrDefault(member.getUniqueId(), 0.0);
+            if (h > bestHeat) {
+                bestHeat = h;
+                best = member;
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,139 @@
+package com.autospectator.plugin;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+
+/**
+ * Lightweight counters for the plugin's own cost on the main thread: time spent
+ * per tick (scheduled tasks plus event handlers), bytes allocated by that work,
+ * and how many teleports and other packets the cameras send. Samples are kept
+ * in a ring buffer so percentiles can be reported on demand.
+ */
+public class PluginMetrics {
+
+    private final boolean enabled;
+    private final long[] tickNanos;
+    private final long[] tickBytes;
+    private final com.sun.management.ThreadMXBean allocationBean;
+
+    private int samples = 0;
+    private int cursor = 0;
+    private long pendingNanos = 0;
+    private long pendingBytes = 0;
+
+    private long teleports = 0;
+    private long packets = 0;
+    private long ticks = 0;
+
+    public PluginMetrics(Main plugin) {
+        this.enabled = plugin.getConfig().getBoolean("metrics.enabled", false);
+        int window = Math.max(20, plugin.getConfig().getInt("metrics.window-ticks", 1200));
+        this.tickNanos = new long[window];
+        this.tickBytes = new long[window];
+
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (enabled && bean instanceof com.sun.management.ThreadMXBean sunBean && sunBean.isThreadAllocatedMemorySupported()) {
+            sunBean.setThreadAllocatedMemoryEnabled(true);
+            this.allocationBean = sunBean;
+        } else {
+            this.allocationBean = null;
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Marks the start of a measured section; pass the result to {@link #endEvent}
+     * or {@link #endTick}.
+     */
+    public long begin() {
+        if (!enabled) return 0;
+        if (allocationBean != null) {
+            pendingBytes -= allocationBean.getCurrentThreadAllocatedBytes();
+        }
+        return System.nanoTime();
+    }
+
+    // Event handler work is folded into the sample of the tick it happened in
+    public void endEvent(long start) {
+        if (!enabled) return;
+        pendingNanos += System.nanoTime() - start;
+        if (allocationBean != null) {
+            pendingBytes += allocationBean.getCurrentThreadAllocatedBytes();
+        }
+    }
+
+    public void endTick(long start) {
+        if (!enabled) return;
+        endEvent(start);
+
+        tickNanos[cursor] = pendingNanos;
+        tickBytes[cursor] = pendingBytes;
+        cursor = (cursor + 1) % tickNanos.length;
+        samples = Math.min(samples + 1, tickNanos.length);
+        pendingNanos = 0;
+        pendingBytes = 0;
+        ticks++;
+    }
+
+    public void countTeleport() {
+        teleports++;
+        packets++;
+    }
+
+    public void countPacket() {
+        packets++;
+    }
+
+    public void reset() {
+        samples = 0;
+        cursor = 0;
+        pendingNanos = 0;
+        pendingBytes = 0;
+        teleports = 0;
+        packets = 0;
+        ticks = 0;
+    }
+
+    public String[] report() {
+        if (!enabled) {
+            return new String[] { "§cMetrics are disabled. Set metrics.enabled to true in config.yml." };
+        }
+        if (samples == 0) {
+            return new String[] { "§eNo ticks recorded yet." };
+        }
+
+        long[] sorted = Arrays.copyOf(tickNanos, samples);
+        Arrays.sort(sorted);
+        long totalBytes = 0;
+        for (int i = 0; i < samples; i++) {
+            totalBytes += tickBytes[i];
+        }
+        double seconds = Math.max(ticks, 1) / 20.0;
+
+        return new String[] {
+            "§eAutoSpectator metrics over the last " + samples + " ticks:",
+            "§7Tick time p50 §f" + micros(percentile(sorted, 0.50)) +
+                " §7p95 §f" + micros(percentile(sorted, 0.95)) +
+                " §7p99 §f" + micros(percentile(sorted, 0.99)) +
+                " §7max §f" + micros(sorted[sorted.length - 1]),
+            allocationBean != null
+                ? "§7Allocated §f" + (totalBytes / samples) + " B/tick"
+                : "§7Allocation tracking is not supported by this JVM",
+            "§7Teleports §f" + teleports + " §7(" + String.format("%.1f", teleports / seconds) + "/s)" +
+                " §7packets §f" + packets + " §7(" + String.format("%.1f", packets / seconds) + "/s)"
+        };
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+
+    private static String micros(long nanos) {
+        return String.format("%.1fµs", nanos / 1000.0);
+    }
+}
@@ -0,0 +1,74 @@
+package com.autospectator.plugin;
+
+/**
+ * Camera candidates of one solve in struct-of-arrays form, so a
+ * {@link RayEvaluator} can place them and walk their rays several at a time.
+ * Each candidate is described by an angle, radius and height around a center;
+ * the evaluator fills in the positions and the number of blocks in the way.
+ */
+public final class RayBatch {
+
+    final double[] angle;
+    final double[] radius;
+    final double[] height;
+    final double[] x;
+    final double[] y;
+    final double[] z;
+    final boolean[] active;
+    final int[] blocks;
+    int size;
+
+    public RayBatch(int capacity) {
+        this.angle = new double[capacity];
+        this.radius = new double[capacity];
+        this.height = new double[capacity];
+        this.x = new double[capacity];
+        this.y = new double[capacity];
+        this.z = new double[capacity];
+        this.active = new boolean[capacity];
+        this.blocks = new int[capacity];
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public void add(double angle, double radius, double height) {
+        this.angle[size] = angle;
+        this.radius[size] = radius;
+        this.height[size] = height;
+        this.active[size] = true;
+        this.blocks[size] = 0;
+        size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Candidates that were dropped (e.g. inside a block) are not walked
+    public void skip(int i) {
+        active[i] = false;
+        blocks[i] = -1;
+    }
+
+    public boolean isActive(int i) {
+        return active[i];
+    }
+
+    public double getX(int i) {
+        return x[i];
+    }
+
+    public double getY(int i) {
+        return y[i];
+    }
+
+    public double getZ(int i) {
+        return z[i];
+    }
+
+    public int getBlocks(int i) {
+        return blocks[i];
+    }
+}
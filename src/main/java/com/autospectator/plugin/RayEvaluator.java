@@ -0,0 +1,43 @@
+package com.autospectator.plugin;
+
+import org.bukkit.World;
+
+/**
+ * Places the candidates of a {@link RayBatch} and counts the solid blocks
+ * between each of them and the point the camera looks at. The vector version
+ * needs the {@code jdk.incubator.vector} module; without it the scalar version
+ * is used.
+ */
+public interface RayEvaluator {
+
+    String getName();
+
+    /**
+     * Computes candidate positions: {@code radius} around the center at
+     * {@code angle}, at {@code height} plus {@code wobble * sin(angle * 0.3)}.
+     */
+    void place(RayBatch rays, double centerX, double centerY, double centerZ, double wobble);
+
+    /**
+     * Skips the candidates where the camera would be inside a block, like
+     * {@link CameraGeometry#isCameraInBlock}, then counts the solid blocks
+     * sampled every half block on the way from each remaining candidate to the
+     * target, like {@link CameraGeometry#countBlocksInLineOfSight}.
+     */
+    void countOccluders(World world, RayBatch rays, double targetX, double targetY, double targetZ);
+
+    static RayEvaluator create(Main plugin) {
+        // Experimental, so only when asked for
+        if (plugin.getConfig().getBoolean("simd.enabled", false)
+            && ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            try {
+                // Loaded by name so this class never links against the incubator module
+                return (RayEvaluator) Class.forName("com.autospectator.plugin.VectorRayEvaluator")
+                    .getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | LinkageError e) {
+                plugin.getLogger().warning("Vector API not usable, camera rays are evaluated one at a time: " + e);
+            }
+        }
+        return new ScalarRayEvaluator();
+    }
+}
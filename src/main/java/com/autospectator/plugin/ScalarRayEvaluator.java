@@ -0,0 +1,138 @@
+package com.autospectator.plugin;
+
+import org.bukkit.World;
+
+/**
+ * Walks the rays of a batch one at a time. Used when the Vector API is not
+ * available or disabled; it shares the voxel buffer and the sampling of
+ * {@link VectorRayEvaluator}, so both pick the same camera positions.
+ */
+final class ScalarRayEvaluator implements RayEvaluator {
+
+    private final VoxelBuffer voxels = new VoxelBuffer();
+
+    @Override
+    public String getName() {
+        return "scalar";
+    }
+
+    @Override
+    public void place(RayBatch rays, double centerX, double centerY, double centerZ, double wobble) {
+        for (int i = 0; i < rays.size; i++) {
+            double a = rays.angle[i];
+            rays.x[i] = centerX + rays.radius[i] * Math.cos(a);
+            rays.y[i] = centerY + rays.height[i] + Math.sin(a * 0.3) * wobble;
+            rays.z[i] = centerZ + rays.radius[i] * Math.sin(a);
+        }
+    }
+
+    @Override
+    public void countOccluders(World world, RayBatch rays, double targetX, double targetY, double targetZ) {
+        if (!voxels.reset(world, rays, targetX, targetY, targetZ)) {
+            countDirect(world, rays, targetX, targetY, targetZ);
+            return;
+        }
+        voxels.skipCamerasInBlocks(rays);
+
+        SpectatorEvents.OcclusionWalk event = new SpectatorEvents.OcclusionWalk();
+        event.begin();
+        int walked = 0;
+        double totalDistance = 0;
+        int sampled = 0;
+        int solid = 0;
+
+        double originX = voxels.getOriginX();
+        double originY = voxels.getOriginY();
+        double originZ = voxels.getOriginZ();
+        long sizeY = voxels.getSizeY();
+        long sizeZ = voxels.getSizeZ();
+
+        for (int i = 0; i < rays.size; i++) {
+            if (!rays.active[i]) continue;
+
+            double fromX = rays.x[i];
+            double fromY = rays.y[i];
+            double fromZ = rays.z[i];
+            double dx = targetX - fromX;
+            double dy = targetY - fromY;
+            double dz = targetZ - fromZ;
+            double distance = Math.sqrt(dx * dx + dy * dy + dz * dz);
+            dx /= distance;
+            dy /= distance;
+            dz /= distance;
+
+            int count = 0;
+            for (double d = 0.5; d < distance; d += 0.5) {
+                // Positions relative to the box are never negative, so truncation floors them
+                long localX = (long) (fromX - originX + dx * d);
+                long localY = (long) (fromY - originY + dy * d);
+                long localZ = (long) (fromZ - originZ + dz * d);
+                sampled++;
+                if (voxels.isSolid((localX * sizeY + localY) * sizeZ + localZ)) {
+                    count++;
+                }
+            }
+            rays.blocks[i] = count;
+            walked++;
+            totalDistance += distance;
+            solid += count;
+        }
+
+        commitWalk(event, walked, totalDistance, sampled, solid);
+    }
+
+    // Rays spread too far for the voxel buffer
+    static void countDirect(World world, RayBatch rays, double targetX, double targetY, double targetZ) {
+        for (int i = 0; i < rays.size; i++) {
+            if (rays.active[i] && CameraGeometry.isCameraInBlock(world, rays.x[i], rays.y[i], rays.z[i])) {
+                rays.skip(i);
+            }
+        }
+
+        SpectatorEvents.OcclusionWalk event = new SpectatorEvents.OcclusionWalk();
+        event.begin();
+        int walked = 0;
+        double totalDistance = 0;
+        int sampled = 0;
+        int solid = 0;
+
+        for (int i = 0; i < rays.size; i++) {
+            if (!rays.active[i]) continue;
+
+            double dx = targetX - rays.x[i];
+            double dy = targetY - rays.y[i];
+            double dz = targetZ - rays.z[i];
+            double distance = Math.sqrt(dx * dx + dy * dy + dz * dz);
+            int count = 0;
+            if (distance > 0) {
+                dx /= distance;
+                dy /= distance;
+                dz /= distance;
+                for (double d = 0.5; d < distance; d += 0.5) {
+                    sampled++;
+                    if (CameraGeometry.isBlockSolid(world, rays.x[i] + dx * d, rays.y[i] + dy * d, rays.z[i] + dz * d)) {
+                        count++;
+                    }
+                }
+            }
+            rays.blocks[i] = count;
+            walked++;
+            totalDistance += distance;
+            solid += count;
+        }
+
+        commitWalk(event, walked, totalDistance, sampled, solid);
+    }
+
+    // One event per batch rather than per ray, with the totals of its walks
+    static void commitWalk(SpectatorEvents.OcclusionWalk event, int walked, double distance, int sampled, int solid) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.rays = walked;
+            event.distance = distance;
+            event.blocksSampled = sampled;
+            event.solidBlocks = solid;
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,273 @@
+package com.autospectator.plugin;
+
+import org.bukkit.Bukkit;
+import org.bukkit.GameMode;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+/**
+ * Keeps the settings of every camera session in {@code sessions.bin} so they
+ * survive restarts and reloads. The file is read once in the background after
+ * enable; changes are collected on the main thread and written behind,
+ * debounced, by a single I/O thread.
+ */
+public class SessionStore {
+
+    private static final int FILE_MAGIC = 0x41535353; // "ASSS"
+    // Version 2 added the location to return to; version 1 files are still read
+    private static final int FILE_VERSION = 2;
+
+    /**
+     * Saved settings of one spectator. {@code target} is the entity a manual
+     * camera was locked on, or the target of a hold requested through the API
+     * until {@code holdUntilMillis}; {@code null} when the camera was cycling.
+     * {@code returnLocation} is where the player stood before becoming a camera.
+     */
+    public record SessionState(UUID spectator, boolean autoMode, int duration,
+                               SpectatorManager.PerspectiveMode perspective, GameMode previousGameMode,
+                               UUID target, int priority, long holdUntilMillis, SavedLocation returnLocation) {
+    }
+
+    // Kept by world id so a saved session never holds on to an unloaded world
+    public record SavedLocation(UUID world, double x, double y, double z, float yaw, float pitch) {
+
+        public static SavedLocation of(Location location) {
+            return new SavedLocation(location.getWorld().getUID(), location.getX(), location.getY(), location.getZ(),
+                location.getYaw(), location.getPitch());
+        }
+
+        // Null when the world is not loaded
+        public Location toLocation() {
+            World loaded = Bukkit.getWorld(world);
+            return loaded != null ? new Location(loaded, x, y, z, yaw, pitch) : null;
+        }
+    }
+
+    private final Main plugin;
+    private final File file;
+    private final boolean enabled;
+    private final long saveDelayTicks;
+
+    private final Map<UUID, SessionState> states = new HashMap<>();
+    // Sessions stopped before the file finished loading must not come back from it
+    private final Set<UUID> removedBeforeLoad = new HashSet<>();
+    private final ExecutorService io;
+    private boolean loaded = false;
+    private boolean dirty = false;
+    private BukkitTask saveTask;
+
+    public SessionStore(Main plugin) {
+        this.plugin = plugin;
+        this.file = new File(plugin.getDataFolder(), "sessions.bin");
+        this.enabled = plugin.getConfig().getBoolean("persistence.enabled", true);
+        this.saveDelayTicks = Math.max(1L, Math.round(plugin.getConfig().getDouble("persistence.save-delay", 2.0) * 20));
+
+        this.io = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "AutoSpectator-Sessions");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Reads the file in the background and hands the states to the main thread,
+     * then runs {@code onLoaded} there so sessions of players already online
+     * (e.g. after a reload) can be restored.
+     */
+    public void load(Runnable onLoaded) {
+        if (!enabled) {
+            loaded = true;
+            return;
+        }
+        io.execute(() -> {
+            Map<UUID, SessionState> read = read();
+            if (!plugin.isEnabled()) return;
+            Bukkit.getScheduler().runTask(plugin, () -> {
+                for (SessionState state : read.values()) {
+                    if (!removedBeforeLoad.contains(state.spectator())) {
+                        states.putIfAbsent(state.spectator(), state);
+                    }
+                }
+                removedBeforeLoad.clear();
+                loaded = true;
+                if (dirty) {
+                    scheduleSave();
+                }
+                onLoaded.run();
+            });
+        });
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    public SessionState get(UUID spectator) {
+        return states.get(spectator);
+    }
+
+    public void update(SessionState state) {
+        if (!enabled) return;
+        if (state.equals(states.put(state.spectator(), state))) return;
+        markDirty();
+    }
+
+    public void remove(UUID spectator) {
+        if (!enabled) return;
+        if (!loaded) {
+            removedBeforeLoad.add(spectator);
+        }
+        if (states.remove(spectator) != null || !loaded) {
+            markDirty();
+        }
+    }
+
+    private void markDirty() {
+        dirty = true;
+        scheduleSave();
+    }
+
+    // Bursts of changes (a command followed by a retarget) end up in one write
+    private void scheduleSave() {
+        if (saveTask != null || !loaded) return;
+        saveTask = Bukkit.getScheduler().runTaskLater(plugin, () -> {
+            saveTask = null;
+            save();
+        }, saveDelayTicks);
+    }
+
+    private void save() {
+        if (!dirty || !loaded) return;
+        byte[] data = serialize(states.values());
+        dirty = false;
+        io.execute(() -> write(data));
+    }
+
+    private Map<UUID, SessionState> read() {
+        Map<UUID, SessionState> read = new HashMap<>();
+        if (!file.exists()) return read;
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            int magic = in.readInt();
+            int version = in.readUnsignedByte();
+            if (magic != FILE_MAGIC || version < 1 || version > FILE_VERSION) {
+                plugin.getLogger().warning("Ignoring unknown session file " + file.getName());
+                return read;
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                UUID spectator = new UUID(in.readLong(), in.readLong());
+                boolean autoMode = in.readBoolean();
+                int duration = in.readInt();
+                String perspective = in.readUTF();
+                String gameMode = in.readUTF();
+                UUID target = in.readBoolean() ? new UUID(in.readLong(), in.readLong()) : null;
+                int priority = in.readInt();
+                long holdUntil = in.readLong();
+                SavedLocation returnLocation = null;
+                if (version >= 2 && in.readBoolean()) {
+                    returnLocation = new SavedLocation(new UUID(in.readLong(), in.readLong()),
+                        in.readDouble(), in.readDouble(), in.readDouble(), in.readFloat(), in.readFloat());
+                }
+                try {
+                    read.put(spectator, new SessionState(spectator, autoMode, duration,
+                        SpectatorManager.PerspectiveMode.valueOf(perspective), GameMode.valueOf(gameMode),
+                        target, priority, holdUntil, returnLocation));
+                } catch (IllegalArgumentException e) {
+                    plugin.getLogger().warning("Skipping saved session of " + spectator + ": " + e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.WARNING, "Failed to read " + file.getName(), e);
+        }
+        return read;
+    }
+
+    // Serialized on the main thread so the I/O thread never sees live state
+    private static byte[] serialize(Collection<SessionState> states) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(FILE_MAGIC);
+            out.writeByte(FILE_VERSION);
+            out.writeInt(states.size());
+            for (SessionState state : states) {
+                out.writeLong(state.spectator().getMostSignificantBits());
+                out.writeLong(state.spectator().getLeastSignificantBits());
+                out.writeBoolean(state.autoMode());
+                out.writeInt(state.duration());
+                out.writeUTF(state.perspective().name());
+                out.writeUTF(state.previousGameMode().name());
+                out.writeBoolean(state.target() != null);
+                if (state.target() != null) {
+                    out.writeLong(state.target().getMostSignificantBits());
+                    out.writeLong(state.target().getLeastSignificantBits());
+                }
+                out.writeInt(state.priority());
+                out.writeLong(state.holdUntilMillis());
+                SavedLocation returnLocation = state.returnLocation();
+                out.writeBoolean(returnLocation != null);
+                if (returnLocation != null) {
+                    out.writeLong(returnLocation.world().getMostSignificantBits());
+                    out.writeLong(returnLocation.world().getLeastSignificantBits());
+                    out.writeDouble(returnLocation.x());
+                    out.writeDouble(returnLocation.y());
+                    out.writeDouble(returnLocation.z());
+                    out.writeFloat(returnLocation.yaw());
+                    out.writeFloat(returnLocation.pitch());
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private void write(byte[] data) {
+        try {
+            File parent = file.getParentFile();
+            if (!parent.exists() && !parent.mkdirs()) {
+                throw new IOException("Could not create " + parent);
+            }
+            File tmp = new File(parent, file.getName() + ".tmp");
+            Files.write(tmp.toPath(), data);
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.WARNING, "Failed to write " + file.getName(), e);
+        }
+    }
+
+    /**
+     * Writes pending changes and waits for the I/O thread to finish. Only called
+     * on plugin disable. If the file never finished loading nothing is written,
+     * so a quick enable/disable cannot wipe saved sessions.
+     */
+    public void close() {
+        if (saveTask != null) {
+            saveTask.cancel();
+            saveTask = null;
+        }
+        save();
+        io.shutdown();
+        try {
+            if (!io.awaitTermination(5, TimeUnit.SECONDS)) {
+                plugin.getLogger().warning("Timed out writing saved sessions.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
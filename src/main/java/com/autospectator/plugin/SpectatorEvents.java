@@ -0,0 +1,175 @@
+package com.autospectator.plugin;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Java Flight Recorder events for camera and trigger activity. They are
+ * controlled through the usual JFR settings (a custom .jfc file or
+ * {@code -XX:StartFlightRecording} options) under the names below. Callers check
+ * {@code isEnabled()} / {@code shouldCommit()} before filling in fields, so a
+ * disabled event costs a constant check.
+ */
+public final class SpectatorEvents {
+
+    private SpectatorEvents() {
+    }
+
+    @Name("com.autospectator.CameraSolve")
+    @Label("Camera Solve")
+    @Description("One camera update of a spectator session")
+    @Category({ "AutoSpectator", "Camera" })
+    @StackTrace(false)
+    public static final class CameraSolve extends Event {
+        @Label("Session")
+        public String session;
+
+        @Label("Target")
+        public String target;
+
+        @Label("Perspective")
+        public String perspective;
+
+        @Label("Blocks Sampled")
+        public long blocksSampled;
+
+        @Label("Candidates Tried")
+        public int candidatesTried;
+
+        @Label("Ray Evaluator")
+        public String evaluator;
+    }
+
+    // Emitted for every batch of line-of-sight walks, so it is off unless asked for
+    @Name("com.autospectator.OcclusionWalk")
+    @Label("Occlusion Walk")
+    @Description("Line-of-sight walks between camera candidates and their target, one event per batch of rays")
+    @Category({ "AutoSpectator", "Camera" })
+    @Enabled(false)
+    @StackTrace(false)
+    public static final class OcclusionWalk extends Event {
+        @Label("Rays")
+        public int rays;
+
+        @Label("Distance")
+        @Description("Total length of the rays walked")
+        public double distance;
+
+        @Label("Blocks Sampled")
+        public int blocksSampled;
+
+        @Label("Solid Blocks")
+        public int solidBlocks;
+    }
+
+    @Name("com.autospectator.CameraTeleport")
+    @Label("Camera Teleport")
+    @Category({ "AutoSpectator", "Camera" })
+    @StackTrace(false)
+    public static final class CameraTeleport extends Event {
+        @Label("Session")
+        public String session;
+
+        @Label("Target")
+        public String target;
+
+        @Label("World")
+        public String world;
+
+        @Label("X")
+        public double x;
+
+        @Label("Y")
+        public double y;
+
+        @Label("Z")
+        public double z;
+    }
+
+    @Name("com.autospectator.TargetSwitch")
+    @Label("Target Switch")
+    @Category({ "AutoSpectator", "Session" })
+    @StackTrace(false)
+    public static final class TargetSwitch extends Event {
+        @Label("Session")
+        public String session;
+
+        @Label("Previous Target")
+        public String previousTarget;
+
+        @Label("Target")
+        public String target;
+
+        @Label("Reason")
+        public String reason;
+    }
+
+    @Name("com.autospectator.TriggerReceived")
+    @Label("Trigger Received")
+    @Category({ "AutoSpectator", "Trigger" })
+    @StackTrace(false)
+    public static final class TriggerReceived extends Event {
+        @Label("Target")
+        public String target;
+
+        @Label("Reason")
+        public String reason;
+
+        @Label("Sessions")
+        public int sessions;
+    }
+
+    @Name("com.autospectator.TriggerDropped")
+    @Label("Trigger Dropped")
+    @Description("A trigger a session ignored, with the cause")
+    @Category({ "AutoSpectator", "Trigger" })
+    @StackTrace(false)
+    public static final class TriggerDropped extends Event {
+        @Label("Session")
+        public String session;
+
+        @Label("Target")
+        public String target;
+
+        @Label("Reason")
+        public String reason;
+
+        @Label("Cause")
+        public String cause;
+    }
+
+    @Name("com.autospectator.DeathSpectateStart")
+    @Label("Death Spectate Start")
+    @Category({ "AutoSpectator", "Session" })
+    @StackTrace(false)
+    public static final class DeathSpectateStart extends Event {
+        @Label("Session")
+        public String session;
+
+        @Label("Player")
+        public String player;
+
+        @Label("World")
+        public String world;
+
+        @Label("X")
+        public double x;
+
+        @Label("Y")
+        public double y;
+
+        @Label("Z")
+        public double z;
+
+        @Label("Duration Seconds")
+        public int durationSeconds;
+
+        @Label("Cached Viewpoint")
+        public boolean cachedViewpoint;
+    }
+}
@@ -1,16 +1,41 @@
 package com.autospectator.plugin;
 
 import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.block.Block;
+import org.bukkit.entity.LivingEntity;
 import org.bukkit.entity.Monster;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
+import org.bukkit.event.block.BlockBreakEvent;
+import org.bukkit.event.block.BlockBurnEvent;
+import org.bukkit.event.block.BlockExplodeEvent;
+import org.bukkit.event.block.BlockFormEvent;
+import org.bukkit.event.block.BlockPistonExtendEvent;
+import org.bukkit.event.block.BlockPistonRetractEvent;
+import org.bukkit.event.block.BlockPlaceEvent;
 import org.bukkit.event.entity.EntityDamageByEntityEvent;
 import org.bukkit.event.entity.EntityDamageEvent;
+import org.bukkit.event.entity.EntityDeathEvent;
+import org.bukkit.event.entity.EntityExplodeEvent;
+import org.bukkit.event.entity.EntityRemoveEvent;
+import org.bukkit.event.entity.EntitySpawnEvent;
 import org.bukkit.event.entity.PlayerDeathEvent;
+import org.bukkit.event.player.PlayerChangedWorldEvent;
+import org.bukkit.event.player.PlayerKickEvent;
 import org.bukkit.event.player.PlayerMoveEvent;
 import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
 import org.bukkit.event.player.PlayerGameModeChangeEvent;
+import org.bukkit.event.player.PlayerInteractEntityEvent;
+import org.bukkit.event.world.EntitiesLoadEvent;
+import org.bukkit.event.world.EntitiesUnloadEvent;
+import org.bukkit.event.world.WorldUnloadEvent;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.List;
 
 public class SpectatorListener implements Listener {
 
@@ -22,11 +47,23 @@ public class SpectatorListener implements Listener {
         this.spectatorManager = spectatorManager;
     }
 
+    // The hot handlers below return right away while nobody is spectating
     @EventHandler
     public void onDamage(EntityDamageEvent event) {
-        if (!(event.getEntity() instanceof Player)) return;
+        if (!spectatorManager.isActive()) return;
+        if (!(event.getEntity() instanceof Player)) {
+            // Picks up mobs that were named after they spawned, e.g. by another plugin
+            spectatorManager.recheckEntity(event.getEntity());
+            return;
+        }
         Player player = (Player) event.getEntity();
 
+        long start = spectatorManager.getMetrics().begin();
+        handleDamage(event, player);
+        spectatorManager.getMetrics().endEvent(start);
+    }
+
+    private void handleDamage(EntityDamageEvent event, Player player) {
         // Handle spectator void damage protection
         if (event.getCause() == EntityDamageEvent.DamageCause.VOID) {
             if (spectatorManager.isSpectator(player)) {
@@ -55,18 +92,28 @@ public class SpectatorListener implements Listener {
 
     @EventHandler
     public void onAttack(EntityDamageByEntityEvent event) {
+        if (!spectatorManager.isActive()) return;
         if (!(event.getDamager() instanceof Player)) return;
         Player player = (Player) event.getDamager();
 
+        long start = spectatorManager.getMetrics().begin();
         if (plugin.getConfig().getBoolean("triggers.hostile-mob-hit", true)) {
             if (event.getEntity() instanceof Monster) {
                 spectatorManager.handleTrigger(player, "Fighting Hostile Mob");
             }
         }
+        spectatorManager.getMetrics().endEvent(start);
     }
 
     @EventHandler
     public void onMove(PlayerMoveEvent event) {
+        if (!spectatorManager.isActive()) return;
+        long start = spectatorManager.getMetrics().begin();
+        handleMove(event);
+        spectatorManager.getMetrics().endEvent(start);
+    }
+
+    private void handleMove(PlayerMoveEvent event) {
         if (!plugin.getConfig().getBoolean("triggers.fall-damage-prediction", true)) return;
         
         Player player = event.getPlayer();
@@ -90,13 +137,141 @@ public class SpectatorListener implements Listener {
         spectatorManager.handleDeath(deadPlayer, deathLocation);
     }
 
+    @EventHandler
+    public void onEntityDeath(EntityDeathEvent event) {
+        LivingEntity entity = event.getEntity();
+        // Players are handled by onPlayerDeath
+        if (entity instanceof Player) return;
+        spectatorManager.handleEntityDeath(entity);
+    }
+
+    // Keep the tracked entity index up to date for non-player targets
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onEntitySpawn(EntitySpawnEvent event) {
+        if (!spectatorManager.isActive()) return;
+        long start = spectatorManager.getMetrics().begin();
+        spectatorManager.handleEntitySpawn(event.getEntity());
+        spectatorManager.getMetrics().endEvent(start);
+    }
+
+    @EventHandler
+    public void onEntitiesLoad(EntitiesLoadEvent event) {
+        if (!spectatorManager.isActive()) return;
+        long start = spectatorManager.getMetrics().begin();
+        spectatorManager.handleEntitiesLoad(event.getEntities());
+        spectatorManager.getMetrics().endEvent(start);
+    }
+
+    @EventHandler
+    public void onEntitiesUnload(EntitiesUnloadEvent event) {
+        if (!spectatorManager.isActive()) return;
+        long start = spectatorManager.getMetrics().begin();
+        spectatorManager.handleEntitiesUnload(event.getEntities());
+        spectatorManager.getMetrics().endEvent(start);
+    }
+
+    // Name tags are applied after the interaction, so the entity is checked again next tick
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onNameTag(PlayerInteractEntityEvent event) {
+        if (!spectatorManager.isActive()) return;
+        ItemStack item = event.getPlayer().getInventory().getItem(event.getHand());
+        if (item != null && item.getType() == Material.NAME_TAG) {
+            spectatorManager.handleEntityRenamed(event.getRightClicked());
+        }
+    }
+
+    // Despawns and other removals that come without a death or unload event
+    @EventHandler
+    public void onEntityRemove(EntityRemoveEvent event) {
+        spectatorManager.handleEntityRemove(event.getEntity());
+    }
+
     @EventHandler
     public void onJoin(PlayerJoinEvent event) {
         spectatorManager.handleJoin(event.getPlayer());
     }
 
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onQuit(PlayerQuitEvent event) {
+        spectatorManager.handleQuit(event.getPlayer());
+    }
+
+    // Kicks are followed by a quit; handling them here as well releases the session first
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onKick(PlayerKickEvent event) {
+        spectatorManager.handleQuit(event.getPlayer());
+    }
+
+    @EventHandler
+    public void onWorldChange(PlayerChangedWorldEvent event) {
+        spectatorManager.handleWorldChange(event.getPlayer());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onWorldUnload(WorldUnloadEvent event) {
+        spectatorManager.handleWorldUnload(event.getWorld());
+    }
+
     @EventHandler
     public void onGameModeChange(PlayerGameModeChangeEvent event) {
         spectatorManager.handleGameModeChange(event.getPlayer(), event.getNewGameMode());
     }
+
+    // Block changes invalidate cached viewpoints that looked through them
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockBreak(BlockBreakEvent event) {
+        handleBlockChange(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockPlace(BlockPlaceEvent event) {
+        handleBlockChange(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockBurn(BlockBurnEvent event) {
+        handleBlockChange(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockForm(BlockFormEvent event) {
+        handleBlockChange(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPistonExtend(BlockPistonExtendEvent event) {
+        handleBlockChanges(event.getBlocks());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPistonRetract(BlockPistonRetractEvent event) {
+        handleBlockChanges(event.getBlocks());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockExplode(BlockExplodeEvent event) {
+        handleBlockChanges(event.blockList());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onEntityExplode(EntityExplodeEvent event) {
+        handleBlockChanges(event.blockList());
+    }
+
+    private void handleBlockChange(Block block) {
+        if (!spectatorManager.isActive()) return;
+        long start = spectatorManager.getMetrics().begin();
+        spectatorManager.handleBlockChange(block);
+        spectatorManager.getMetrics().endEvent(start);
+    }
+
+    private void handleBlockChanges(List<Block> blocks) {
+        if (!spectatorManager.isActive()) return;
+        long start = spectatorManager.getMetrics().begin();
+        for (Block block : blocks) {
+            spectatorManager.handleBlockChange(block);
+        }
+        spectatorManager.getMetrics().endEvent(start);
+    }
 }
@@ -3,21 +3,46 @@ package com.autospectator.plugin;
 import org.bukkit.Bukkit;
 import org.bukkit.GameMode;
 import org.bukkit.Location;
+import org.bukkit.World;
 import org.bukkit.attribute.Attribute;
 import org.bukkit.attribute.AttributeInstance;
 import org.bukkit.block.Block;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.LivingEntity;
 import org.bukkit.entity.Player;
 import org.bukkit.scheduler.BukkitRunnable;
-import org.bukkit.util.Vector;
+import org.bukkit.scheduler.BukkitTask;
 
 import java.util.*;
-import java.util.stream.Collectors;
 
 public class SpectatorManager {
 
     private final Main plugin;
     private final Map<UUID, SpectatorSession> sessions = new HashMap<>();
-    private final Random random = new Random();
+    private static final int ORBIT_ANGLES = 8;
+    private static final int CINEMATIC_CANDIDATES = 15;
+    // Priority of a camera that is just cycling, so even a low-priority trigger replaces it
+    private static final int PRIORITY_ROTATION = Integer.MIN_VALUE;
+
+    private final Random random;
+    private final PluginMetrics metrics;
+    private final AutoSpectatorServiceImpl service;
+    private final TimingWheel timers = new TimingWheel();
+    private final PlayerSpatialIndex spatialIndex;
+    private final TrackedEntityIndex entityIndex;
+    private final ViewpointCache viewpointCache;
+    private final SessionStore sessionStore;
+    private final RayEvaluator rayEvaluator;
+
+    // Tasks run only while at least one session exists; read by API threads
+    private final List<BukkitTask> tasks = new ArrayList<>();
+    private volatile boolean active = false;
+    private final boolean viewpointCacheEnabled;
+
+    // Group shot settings
+    private final boolean groupShotEnabled;
+    private final double groupShotMinPriority;
+    private final double groupShotFov;
 
     public enum PerspectiveMode {
         FOLLOWUP,
@@ -26,29 +51,129 @@ public class SpectatorManager {
 
     public SpectatorManager(Main plugin) {
         this.plugin = plugin;
-        startTasks();
+        this.metrics = new PluginMetrics(plugin);
+        this.service = new AutoSpectatorServiceImpl(plugin, this);
+        // A fixed seed makes camera choices repeatable between load-test runs
+        long seed = plugin.getConfig().getLong("metrics.random-seed", 0L);
+        this.random = seed != 0 ? new Random(seed) : new Random();
+        this.spatialIndex = new PlayerSpatialIndex(plugin);
+        this.entityIndex = new TrackedEntityIndex(plugin);
+        this.viewpointCache = new ViewpointCache(plugin);
+        this.sessionStore = new SessionStore(plugin);
+        this.rayEvaluator = RayEvaluator.create(plugin);
+        plugin.getLogger().info("Camera rays evaluated with the " + rayEvaluator.getName() + " evaluator.");
+        this.viewpointCacheEnabled = plugin.getConfig().getBoolean("viewpoint-cache.enabled", true);
+        this.groupShotEnabled = plugin.getConfig().getBoolean("group-shot.enabled", true);
+        this.groupShotMinPriority = plugin.getConfig().getDouble("group-shot.min-priority", 1.0);
+        this.groupShotFov = Math.toRadians(plugin.getConfig().getDouble("group-shot.fov", 70.0));
+        // Saved sessions are read in the background; players already online get theirs back once it's done.
+        // Everything else waits for the first session
+        sessionStore.load(this::restoreOnlineSessions);
     }
 
-    private void startTasks() {
-        // Movement task - runs every tick
-        new BukkitRunnable() {
+    public boolean isActive() {
+        return active;
+    }
+
+    /**
+     * Starts the tasks and entity tracking when the first session starts. Until
+     * then the plugin is idle: no tasks run and the hot listeners return after
+     * checking {@link #isActive()}.
+     */
+    private void wake() {
+        if (active) return;
+        active = true;
+
+        // Entities were not tracked while idle, so pick up the ones loaded now
+        entityIndex.seedLoadedEntities();
+
+        // Movement task - runs every tick, firing due session timers first
+        tasks.add(new BukkitRunnable() {
             @Override
             public void run() {
+                long start = metrics.begin();
+                for (SpectatorSession session : sessions.values()) {
+                    session.refreshTarget();
+                }
+                service.drain();
+                timers.tick();
                 for (SpectatorSession session : sessions.values()) {
                     session.updateMovement();
                 }
+                metrics.endTick(start);
             }
-        }.runTaskTimer(plugin, 0L, 1L);
+        }.runTaskTimer(plugin, 0L, 1L));
 
-        // Logic task - runs every second to check timers/cycling
-        new BukkitRunnable() {
-            @Override
-            public void run() {
-                for (SpectatorSession session : sessions.values()) {
-                    session.tick();
+        // Spatial index task - refreshes player cells and clusters every few ticks
+        if (groupShotEnabled) {
+            long refreshTicks = Math.max(1L, plugin.getConfig().getLong("group-shot.refresh-ticks", 5L));
+            spatialIndex.refresh();
+            tasks.add(new BukkitRunnable() {
+                @Override
+                public void run() {
+                    long start = metrics.begin();
+                    spatialIndex.refresh();
+                    metrics.endEvent(start);
                 }
-            }
-        }.runTaskTimer(plugin, 0L, 20L);
+            }.runTaskTimer(plugin, refreshTicks, refreshTicks));
+        }
+
+        // Viewpoint cache task - writes dirty regions in the background
+        if (viewpointCacheEnabled) {
+            long saveTicks = Math.max(1L, plugin.getConfig().getLong("viewpoint-cache.save-interval", 300L)) * 20L;
+            tasks.add(new BukkitRunnable() {
+                @Override
+                public void run() {
+                    long start = metrics.begin();
+                    viewpointCache.saveDirty();
+                    metrics.endEvent(start);
+                }
+            }.runTaskTimer(plugin, saveTicks, saveTicks));
+        }
+    }
+
+    // Goes back to idle once the last session has ended
+    private void sleepIfIdle() {
+        if (!active || !sessions.isEmpty()) return;
+        active = false;
+
+        for (BukkitTask task : tasks) {
+            task.cancel();
+        }
+        tasks.clear();
+        if (viewpointCacheEnabled) {
+            viewpointCache.saveDirty();
+        }
+        // Nothing is tracked while idle, so don't keep players or entities around either
+        spatialIndex.clear();
+        entityIndex.clear();
+
+        // A request queued just before going idle would otherwise wait for the next session
+        service.drainWhileIdle();
+    }
+
+    public AutoSpectatorServiceImpl getService() {
+        return service;
+    }
+
+    public PluginMetrics getMetrics() {
+        return metrics;
+    }
+
+    public void shutdown() {
+        service.close();
+
+        // Save every running session before ending it, so it comes back on the next start
+        for (SpectatorSession session : sessions.values()) {
+            session.saveState();
+        }
+        sessionStore.close();
+        for (SpectatorSession session : sessions.values()) {
+            endSession(session);
+        }
+        sessions.clear();
+
+        viewpointCache.close();
     }
 
     public void toggleSpectator(Player player) {
@@ -62,8 +187,11 @@ public class SpectatorManager {
     }
 
     public void startSpectating(Player player) {
-        player.setGameMode(GameMode.SPECTATOR);
         SpectatorSession session = new SpectatorSession(plugin, player);
+        session.previousGameMode = player.getGameMode();
+        session.returnLocation = SessionStore.SavedLocation.of(player.getLocation());
+        player.setGameMode(GameMode.SPECTATOR);
+        wake();
         sessions.put(player.getUniqueId(), session);
 
         // Hide this spectator from other spectators and vice versa
@@ -80,9 +208,36 @@ public class SpectatorManager {
     }
 
     public void stopSpectating(Player player) {
-        sessions.remove(player.getUniqueId());
-        
-        // Restore visibility
+        SpectatorSession session = sessions.remove(player.getUniqueId());
+        sessionStore.remove(player.getUniqueId());
+        if (session != null) {
+            endSession(session);
+        } else {
+            restoreVisibility(player);
+        }
+        sleepIfIdle();
+    }
+
+    private void endSession(SpectatorSession session) {
+        session.cancelTimers();
+        Player player = session.spectator;
+        if (!player.isOnline()) return;
+
+        // Put the account back where it stood and in the game mode it had before it
+        // became a camera; teleport first so it never lands at the camera's position
+        if (player.getGameMode() == GameMode.SPECTATOR) {
+            Location returnTo = session.returnLocation != null ? session.returnLocation.toLocation() : null;
+            if (returnTo != null) {
+                player.teleport(returnTo);
+            }
+            if (session.previousGameMode != GameMode.SPECTATOR) {
+                player.setGameMode(session.previousGameMode);
+            }
+        }
+        restoreVisibility(player);
+    }
+
+    private void restoreVisibility(Player player) {
         for (Player online : Bukkit.getOnlinePlayers()) {
             if (online.getUniqueId().equals(player.getUniqueId())) continue;
 
@@ -91,7 +246,82 @@ public class SpectatorManager {
         }
     }
 
+    private void restoreOnlineSessions() {
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            SessionStore.SessionState state = sessionStore.get(player.getUniqueId());
+            if (state != null) {
+                restoreSession(player, state);
+            }
+        }
+    }
+
+    private void restoreSession(Player player, SessionStore.SessionState state) {
+        if (sessions.containsKey(player.getUniqueId())) return;
+        startSpectating(player);
+        sessions.get(player.getUniqueId()).restore(state);
+        player.sendMessage("§aAuto-spectator session restored.");
+    }
+
+    public void handleQuit(Player player) {
+        // A camera account that leaves is suspended: its state is saved for when it
+        // comes back, then the session is torn down so it holds no reference to it.
+        // The account stays a spectator while offline; restoring the session on
+        // rejoin resumes the camera, and stopping it then puts the player back
+        SpectatorSession session = sessions.remove(player.getUniqueId());
+        if (session != null) {
+            session.saveState();
+            if (sessionStore.isEnabled()) {
+                session.cancelTimers();
+                restoreVisibility(player);
+            } else {
+                // Nothing would restore it on rejoin
+                endSession(session);
+            }
+        }
+
+        spatialIndex.remove(player.getUniqueId());
+        for (SpectatorSession other : sessions.values()) {
+            other.handleTargetLeft(player.getUniqueId());
+        }
+        sleepIfIdle();
+    }
+
+    public void handleWorldChange(Player player) {
+        // Cross-world camera teleports fire this for the spectator too, so the
+        // session keeps running and only drops camera state from the old world
+        SpectatorSession own = sessions.get(player.getUniqueId());
+        if (own != null) {
+            own.resetWorldState(player.getWorld());
+        }
+        for (SpectatorSession session : sessions.values()) {
+            if (player.getUniqueId().equals(session.currentTargetId)) {
+                session.resetWorldState(player.getWorld());
+            }
+        }
+    }
+
+    public void handleWorldUnload(World world) {
+        for (SpectatorSession session : sessions.values()) {
+            session.handleWorldUnload(world);
+        }
+    }
+
+    public String getLifecycleReport() {
+        return "§7Sessions §f" + sessions.size() +
+            " §7tracked entities §f" + entityIndex.size() +
+            " §7pending timers §f" + timers.size();
+    }
+
     public void handleJoin(Player player) {
+        // Before the saved sessions are loaded, restoreOnlineSessions picks this player up
+        if (sessionStore.isLoaded()) {
+            SessionStore.SessionState state = sessionStore.get(player.getUniqueId());
+            if (state != null) {
+                restoreSession(player, state);
+                return;
+            }
+        }
+
         if (player.getGameMode() == GameMode.SPECTATOR) {
             for (SpectatorSession session : sessions.values()) {
                 Player spectator = session.spectator;
@@ -123,6 +353,13 @@ public class SpectatorManager {
         }
     }
 
+    public void handleBlockChange(Block block) {
+        // Cached viewpoints are checked again before use, so changes while idle can be skipped
+        if (active && viewpointCacheEnabled) {
+            viewpointCache.invalidate(block);
+        }
+    }
+
     public boolean isSpectator(Player player) {
         return sessions.containsKey(player.getUniqueId());
     }
@@ -136,6 +373,11 @@ public class SpectatorManager {
     }
 
     public void setSpectateTime(Player player, int seconds) {
+        // A shorter hold would rotate every tick
+        if (seconds < 1) {
+            player.sendMessage("§cSpectate duration must be at least 1 second.");
+            return;
+        }
         if (sessions.containsKey(player.getUniqueId())) {
             sessions.get(player.getUniqueId()).setDuration(seconds);
             player.sendMessage("§aSpectate duration set to " + seconds + " seconds.");
@@ -158,12 +400,15 @@ public class SpectatorManager {
             startSpectating(spectator);
         }
         
-        Player target = Bukkit.getPlayer(targetName);
+        LivingEntity target = Bukkit.getPlayer(targetName);
+        if (target == null) {
+            target = entityIndex.findByName(targetName);
+        }
         if (target != null) {
             sessions.get(spectator.getUniqueId()).forceSpectate(target);
             spectator.sendMessage("§aNow spectating " + target.getName());
         } else {
-            spectator.sendMessage("§cPlayer not found.");
+            spectator.sendMessage("§cPlayer or entity not found.");
         }
     }
 
@@ -176,19 +421,95 @@ public class SpectatorManager {
         }
     }
 
-    public void handleTrigger(Player target, String reason) {
+    public void handleTrigger(LivingEntity target, String reason) {
+        handleTrigger(target, reason, ExternalTrigger.PRIORITY_NORMAL);
+    }
+
+    private LivingEntity resolveTarget(UUID id) {
+        LivingEntity target = Bukkit.getPlayer(id);
+        if (target == null) {
+            target = entityIndex.get(id);
+        }
+        if (target == null && Bukkit.getEntity(id) instanceof LivingEntity living && !(living instanceof Player)) {
+            // Not tracked automatically, but another plugin asked for it by id
+            target = living;
+        }
+        return target != null && target.isValid() ? target : null;
+    }
+
+    public TriggerResult handleExternalTrigger(ExternalTrigger trigger) {
+        LivingEntity target = resolveTarget(trigger.target());
+        if (target == null) return TriggerResult.TARGET_OFFLINE;
+        return handleTrigger(target, trigger.reason(), trigger.priority());
+    }
+
+    public TriggerResult handleForcedTarget(ForcedTarget request) {
+        LivingEntity target = resolveTarget(request.target());
+        if (target == null) return TriggerResult.TARGET_OFFLINE;
+        if (isSpectator(target)) return TriggerResult.IGNORED;
+
+        long holdTicks = request.holdSeconds() * 20L;
+        if (request.spectator() != null) {
+            SpectatorSession session = sessions.get(request.spectator());
+            if (session == null) return TriggerResult.NO_SESSIONS;
+            if (!session.isAutoMode()) return TriggerResult.IGNORED; // Someone picked this camera's target by hand
+            if (session.isSelf(target)) return TriggerResult.IGNORED;
+            return session.triggerSpectate(target, "forced", request.priority(), holdTicks, true)
+                ? TriggerResult.ACCEPTED : TriggerResult.IGNORED;
+        }
+
+        boolean anySession = false;
+        boolean accepted = false;
+        for (SpectatorSession session : sessions.values()) {
+            if (session.isAutoMode()) {
+                anySession = true;
+                if (session.isSelf(target)) continue;
+                accepted |= session.triggerSpectate(target, "forced", request.priority(), holdTicks, true);
+            }
+        }
+        if (!anySession) return TriggerResult.NO_SESSIONS;
+        return accepted ? TriggerResult.ACCEPTED : TriggerResult.IGNORED;
+    }
+
+    private TriggerResult handleTrigger(LivingEntity target, String reason, int priority) {
+        // Camera accounts are never filmed, e.g. when one takes void damage
+        if (isSpectator(target)) return TriggerResult.IGNORED;
+
+        SpectatorEvents.TriggerReceived received = new SpectatorEvents.TriggerReceived();
+        if (received.shouldCommit()) {
+            received.target = target.getName();
+            received.reason = reason;
+            received.sessions = sessions.size();
+            received.commit();
+        }
+
         // If any spectator is active, force them to watch this target
         // But only if they are in auto mode or if the trigger is important enough?
         // User said: "TP-inmediately when... The idea is to be able to catch is a user is about to die"
-        
+
+        // Raise the priority of the cluster the target belongs to
+        if (groupShotEnabled && target instanceof Player player) {
+            spatialIndex.boost(player);
+        }
+
+        boolean anySession = false;
+        boolean accepted = false;
         for (SpectatorSession session : sessions.values()) {
             if (session.isAutoMode()) {
-                session.triggerSpectate(target, reason);
+                anySession = true;
+                if (session.isSelf(target)) continue;
+                accepted |= session.triggerSpectate(target, reason, priority, 0, false);
             }
         }
+        if (!anySession) return TriggerResult.NO_SESSIONS;
+        return accepted ? TriggerResult.ACCEPTED : TriggerResult.IGNORED;
     }
 
-    public void handleDeath(Player deadPlayer, Location deathLocation) {
+    private static boolean isSpectator(LivingEntity target) {
+        return target instanceof Player player && player.getGameMode() == GameMode.SPECTATOR;
+    }
+
+    public void handleDeath(LivingEntity deadPlayer, Location deathLocation) {
         // If any spectator is in auto mode, force them to watch the death location
         int deathDuration = plugin.getConfig().getInt("spectate-death-duration", 10);
         for (SpectatorSession session : sessions.values()) {
@@ -198,21 +519,84 @@ public class SpectatorManager {
         }
     }
 
+    public void handleEntitySpawn(Entity entity) {
+        if (!active) return;
+        entityIndex.add(entity);
+    }
+
+    public void handleEntityDeath(LivingEntity entity) {
+        if (!active) return;
+        if (!entityIndex.contains(entity)) return;
+        entityIndex.remove(entity);
+        // Film the death of a boss the same way as a player's
+        handleDeath(entity, entity.getLocation());
+    }
+
+    public void handleEntitiesLoad(List<Entity> entities) {
+        if (!active) return;
+        entityIndex.addAll(entities);
+    }
+
+    public void handleEntitiesUnload(List<Entity> entities) {
+        if (!active) return;
+        entityIndex.removeAll(entities);
+    }
+
+    public void handleEntityRemove(Entity entity) {
+        if (!active) return;
+        entityIndex.remove(entity);
+    }
+
+    public void handleEntityRenamed(Entity entity) {
+        if (!active) return;
+        Bukkit.getScheduler().runTask(plugin, () -> recheckEntity(entity));
+    }
+
+    // Entities can become eligible after spawning, e.g. when they get a custom name
+    public void recheckEntity(Entity entity) {
+        if (!active || !entity.isValid()) return;
+        entityIndex.add(entity);
+    }
+
     private class SpectatorSession {
         private final Player spectator;
-        private Player currentTarget;
+        // Held by id; currentTarget is looked up again every tick so departed
+        // players and unloaded entities are never kept alive by a session
+        private UUID currentTargetId;
+        private LivingEntity currentTarget;
         private Location currentLocationTarget;
         private String locationTargetName;
         private boolean autoMode = true;
         private int duration;
-        private int timeRemaining;
-        private int locationSpectationTimeRemaining = 0;
         private boolean nonInterruptionInDeathSpectation;
+        private long triggerCooldownTicks;
+        private int currentPriority = PRIORITY_ROTATION;
+        private GameMode previousGameMode = GameMode.SPECTATOR;
+        private SessionStore.SavedLocation returnLocation;
+
+        // Deadlines registered with the manager's timing wheel
+        private TimingWheel.Timeout rotationTimer;
+        private TimingWheel.Timeout locationTimer;
+        private TimingWheel.Timeout cinematicTimer;
+        private TimingWheel.Timeout triggerCooldown;
         
         private PerspectiveMode perspective = PerspectiveMode.FOLLOWUP;
-        private Location cinematicLocation;
-        private long lastCinematicSwitch;
+        private boolean framingGroup = false;
+        private boolean hasCinematicPose = false;
+        private World cinematicWorld;
         private double currentLookAtY = -1;
+        private double targetEyeHeight = 1.6;
+        private double targetSizeOffset = 0;
+        private boolean deathViewpointRecorded = false;
+        private final List<ViewpointCache.Viewpoint> cachedViewpoints = new ArrayList<>();
+
+        // Reused every tick so the camera solvers don't allocate
+        private final Location targetLocation = new Location(null, 0, 0, 0);
+        private final CameraPose cameraPose = new CameraPose();
+        private final CameraPose cinematicPose = new CameraPose();
+        private int candidatesTried;
+        private final double[] cinematicCandidates = new double[CINEMATIC_CANDIDATES * 3];
+        private final RayBatch rays = new RayBatch(Math.max(ORBIT_ANGLES, CINEMATIC_CANDIDATES));
 
         // Configurable distances
         private double cinematicDistanceMin;
@@ -227,9 +611,9 @@ public class SpectatorManager {
 
         public SpectatorSession(Main plugin, Player spectator) {
             this.spectator = spectator;
-            this.duration = plugin.getConfig().getInt("spectate-duration", 15);
-            this.timeRemaining = duration;
+            this.duration = Math.max(1, plugin.getConfig().getInt("spectate-duration", 15));
             this.nonInterruptionInDeathSpectation = plugin.getConfig().getBoolean("non-interruption-in-death-spectation", true);
+            this.triggerCooldownTicks = Math.round(plugin.getConfig().getDouble("triggers.cooldown", 0) * 20);
             
             // Load cinematic settings
             this.cinematicDistanceMin = plugin.getConfig().getDouble("cinematic.distance-min", 6);
@@ -246,125 +630,400 @@ public class SpectatorManager {
             this.duration = seconds;
             // If we are currently waiting, update remaining time? 
             // Maybe not necessary, just applies to next cycle or current countdown.
+            saveState();
+        }
+
+        private SessionStore.SessionState toState() {
+            UUID target = null;
+            int priority = ExternalTrigger.PRIORITY_NORMAL;
+            long holdUntil = 0;
+            if (currentTargetId != null && !autoMode) {
+                target = currentTargetId;
+            } else if (currentTarget != null && currentPriority > ExternalTrigger.PRIORITY_NORMAL && rotationTimer != null && rotationTimer.isPending()) {
+                // A hold requested through the API, kept until its original deadline
+                target = currentTarget.getUniqueId();
+                priority = currentPriority;
+                holdUntil = System.currentTimeMillis() + rotationTimer.getRemainingTicks() * 50L;
+            }
+            return new SessionStore.SessionState(spectator.getUniqueId(), autoMode, duration, perspective,
+                previousGameMode, target, priority, holdUntil, returnLocation);
+        }
+
+        // Cheap when nothing changed; the store only writes when the state differs
+        private void saveState() {
+            sessionStore.update(toState());
+        }
+
+        private void restore(SessionStore.SessionState state) {
+            previousGameMode = state.previousGameMode();
+            // Files written before locations were saved keep the one taken on rejoin
+            if (state.returnLocation() != null) {
+                returnLocation = state.returnLocation();
+            }
+            // Sessions saved before durations were validated may hold 0 or less
+            duration = Math.max(1, state.duration());
+            perspective = state.perspective();
+
+            if (state.target() == null || state.target().equals(spectator.getUniqueId())) {
+                saveState();
+                return;
+            }
+            LivingEntity target = resolveTarget(state.target());
+            if (!state.autoMode()) {
+                if (target != null) {
+                    forceSpectate(target);
+                } else {
+                    // Camera accounts usually join before the players they follow,
+                    // so wait for the target like a manual camera whose target left
+                    autoMode = false;
+                    currentPriority = PRIORITY_ROTATION;
+                    stopLocationSpectation();
+                    rotationTimer = timers.cancel(rotationTimer);
+                    currentTarget = null;
+                    currentTargetId = state.target();
+                    framingGroup = false;
+                    saveState();
+                }
+                return;
+            }
+            // An API hold is only worth restoring while its target is still here
+            long remainingTicks = (state.holdUntilMillis() - System.currentTimeMillis()) / 50L;
+            if (target != null && remainingTicks > 0) {
+                triggerSpectate(target, "restored", state.priority(), remainingTicks, true);
+            }
+            saveState();
         }
 
         public boolean isAutoMode() {
             return autoMode;
         }
 
+        // A camera pointed at itself would orbit its own position
+        public boolean isSelf(LivingEntity target) {
+            return target.getUniqueId().equals(spectator.getUniqueId());
+        }
+
         public void enableAutoMode() {
             this.autoMode = true;
             findNextTarget();
         }
 
-        public void forceSpectate(Player target) {
+        public void forceSpectate(LivingEntity target) {
             this.autoMode = false;
-            setTarget(target);
+            this.currentPriority = PRIORITY_ROTATION;
+            stopLocationSpectation();
+            setTarget(target, "forced");
+            saveState();
         }
 
-        public void triggerSpectate(Player target, String reason) {
+        // holdTicks of 0 means the session's normal duration. Forced requests skip
+        // the death-spectate and cooldown checks but still respect priority.
+        public boolean triggerSpectate(LivingEntity target, String reason, int priority, long holdTicks, boolean forced) {
+            // Only above-normal priorities interrupt death spectating and cooldowns
+            boolean outranks = forced || priority > Math.max(currentPriority, ExternalTrigger.PRIORITY_NORMAL);
+
             // If non-interruption is enabled and we're watching a death, don't interrupt
-            if (nonInterruptionInDeathSpectation && locationSpectationTimeRemaining > 0) {
-                return;
+            if (nonInterruptionInDeathSpectation && isWatchingLocation() && !outranks) {
+                recordDroppedTrigger(target, reason, "death-spectate");
+                return false;
+            }
+
+            // Never replace a more important shot
+            if (priority < currentPriority) {
+                recordDroppedTrigger(target, reason, "priority");
+                return false;
             }
             
             // Only switch if we aren't already watching them
-            if (currentTarget != null && currentTarget.equals(target)) {
+            if (target.getUniqueId().equals(currentTargetId) && !isWatchingLocation()) {
                 // Reset timer to ensure we keep watching them during the event
-                timeRemaining = duration; 
-                return;
+                currentPriority = priority;
+                restartRotation(holdTicks);
+                saveState();
+                return true;
+            }
+
+            // Don't bounce between players that keep triggering each other
+            if (triggerCooldown != null && !outranks) {
+                recordDroppedTrigger(target, reason, "cooldown");
+                return false;
             }
+
+            stopLocationSpectation();
             
             // Switch to the triggered player
-            setTarget(target);
+            setTarget(target, "trigger: " + reason);
+            currentPriority = priority;
+            // Frame the whole fight if the target is part of a group
+            framingGroup = groupShotEnabled && spatialIndex.getCluster(target) != null;
             // Reset timer
-            timeRemaining = duration;
+            restartRotation(holdTicks);
+            if (triggerCooldownTicks > 0) {
+                timers.cancel(triggerCooldown);
+                triggerCooldown = timers.schedule(triggerCooldownTicks, () -> triggerCooldown = null);
+            }
             // plugin.getLogger().info("Triggered spectate on " + target.getName() + " due to " + reason);
+            saveState();
+            return true;
+        }
+
+        private void recordDroppedTrigger(LivingEntity target, String reason, String cause) {
+            SpectatorEvents.TriggerDropped dropped = new SpectatorEvents.TriggerDropped();
+            if (dropped.shouldCommit()) {
+                dropped.session = spectator.getName();
+                dropped.target = target.getName();
+                dropped.reason = reason;
+                dropped.cause = cause;
+                dropped.commit();
+            }
         }
 
         public void spectateLocation(Location location, String playerName, int durationSeconds) {
+            // A higher-priority shot requested by another plugin keeps running
+            if (currentPriority > ExternalTrigger.PRIORITY_NORMAL) return;
+
             // Set a location target that the spectator will watch for the specified duration
             currentLocationTarget = location.clone();
             locationTargetName = playerName;
-            locationSpectationTimeRemaining = durationSeconds; // Store seconds directly
+            timers.cancel(locationTimer);
+            locationTimer = timers.schedule(durationSeconds * 20L, this::onLocationSpectationEnd);
             currentTarget = null; // Clear player target
+            currentTargetId = null;
+            framingGroup = false;
+            deathViewpointRecorded = false;
+
+            // Start the orbit from a position that is known to work around here
+            boolean cached = findCachedViewpoint(location.getWorld(), location.getX(), location.getY(), location.getZ(), location.getY() + 1.0, cameraPose);
+            if (cached) {
+                angle = Math.atan2(cameraPose.z - location.getZ(), cameraPose.x - location.getX());
+            }
+
+            SpectatorEvents.DeathSpectateStart event = new SpectatorEvents.DeathSpectateStart();
+            if (event.shouldCommit()) {
+                event.session = spectator.getName();
+                event.player = playerName;
+                event.world = location.getWorld().getName();
+                event.x = location.getX();
+                event.y = location.getY();
+                event.z = location.getZ();
+                event.durationSeconds = durationSeconds;
+                event.cachedViewpoint = cached;
+                event.commit();
+            }
         }
 
-        private void setTarget(Player target) {
+        private void setTarget(LivingEntity target, String reason) {
+            SpectatorEvents.TargetSwitch event = new SpectatorEvents.TargetSwitch();
+            if (event.shouldCommit()) {
+                event.session = spectator.getName();
+                event.previousTarget = currentTarget != null ? currentTarget.getName() : null;
+                event.target = target.getName();
+                event.reason = reason;
+                event.commit();
+            }
+
             this.currentTarget = target;
+            this.currentTargetId = target.getUniqueId();
+            this.framingGroup = false;
             // Reset movement parameters for a smooth transition or new angle
             angle = random.nextDouble() * Math.PI * 2;
             spectator.setSpectatorTarget(null); // Unlock camera so we can move it
-            currentLookAtY = target.getLocation().getY() + 1.6;
+            frame(target);
+        }
+
+        private void frame(LivingEntity target) {
+            // Keep the player framing as it was; scale up for large entities like dragons
+            targetEyeHeight = target instanceof Player ? 1.6 : target.getEyeHeight();
+            targetSizeOffset = target instanceof Player ? 0 : Math.max(0, target.getHeight() - 1.8);
+            currentLookAtY = target.getLocation().getY() + targetEyeHeight;
         }
 
         public void setPerspective(PerspectiveMode mode) {
             this.perspective = mode;
-            this.cinematicLocation = null; // Reset cinematic location
+            this.hasCinematicPose = false; // Reset cinematic location
+            this.cinematicTimer = timers.cancel(cinematicTimer);
+            saveState();
         }
 
-        public void tick() {
-            if (!autoMode) return; // In single player mode, we don't cycle
-
-            // Handle location spectation (death location watching)
-            if (locationSpectationTimeRemaining > 0) {
-                locationSpectationTimeRemaining--;
-                if (locationSpectationTimeRemaining <= 0) {
-                    // Time to stop watching the location and go back to auto mode
-                    currentLocationTarget = null;
-                    locationTargetName = null;
-                    findNextTarget();
-                }
-                return; // Don't process player target logic while watching a location
+        public void refreshTarget() {
+            LivingEntity previous = currentTarget;
+            currentTarget = currentTargetId != null ? resolveTarget(currentTargetId) : null;
+            // A restored target may not have been seen yet, so size it up when it arrives
+            if (previous == null && currentTarget != null) {
+                frame(currentTarget);
             }
 
-            if (currentTarget == null || !currentTarget.isOnline() || currentTarget.isDead()) {
+            // Move on as soon as the target leaves or dies; a manual camera waits for it to come back
+            if (autoMode && currentTargetId != null && !isWatchingLocation()
+                && (currentTarget == null || currentTarget.isDead())) {
                 findNextTarget();
-                return;
             }
+        }
+
+        // Called while the target is still online, so only drop the reference here;
+        // the next refresh picks someone else
+        public void handleTargetLeft(UUID id) {
+            if (id.equals(currentTargetId)) {
+                currentTarget = null;
+                framingGroup = false;
+            }
+        }
+
+        // Camera positions chosen in another world are no longer usable
+        public void resetWorldState(World world) {
+            if (cinematicWorld != null && cinematicWorld != world) {
+                hasCinematicPose = false;
+                cinematicWorld = null;
+                cinematicTimer = timers.cancel(cinematicTimer);
+                currentLookAtY = -1;
+            }
+        }
 
-            timeRemaining--;
-            if (timeRemaining <= 0) {
+        public void handleWorldUnload(World world) {
+            if (cinematicWorld == world) {
+                resetWorldState(null);
+            }
+            if (currentLocationTarget != null && world.equals(currentLocationTarget.getWorld())) {
+                onLocationSpectationEnd();
+            }
+        }
+
+        private boolean isWatchingLocation() {
+            return locationTimer != null && locationTimer.isPending();
+        }
+
+        private void stopLocationSpectation() {
+            locationTimer = timers.cancel(locationTimer);
+            currentLocationTarget = null;
+            locationTargetName = null;
+        }
+
+        private void onLocationSpectationEnd() {
+            // Time to stop watching the location and go back to auto mode
+            stopLocationSpectation();
+            if (autoMode) {
                 findNextTarget();
             }
         }
 
+        private void restartRotation() {
+            restartRotation(0);
+        }
+
+        private void restartRotation(long ticks) {
+            timers.cancel(rotationTimer);
+            rotationTimer = timers.schedule(ticks > 0 ? ticks : duration * 20L, this::onRotationDue);
+        }
+
+        private void onRotationDue() {
+            if (!autoMode) return; // In single player mode, we don't cycle
+            if (isWatchingLocation()) return; // Location end picks the next target
+            findNextTarget();
+        }
+
+        public void cancelTimers() {
+            rotationTimer = timers.cancel(rotationTimer);
+            locationTimer = timers.cancel(locationTimer);
+            cinematicTimer = timers.cancel(cinematicTimer);
+            triggerCooldown = timers.cancel(triggerCooldown);
+        }
+
         public void findNextTarget() {
-            List<Player> players = Bukkit.getOnlinePlayers().stream()
-                .filter(p -> !p.equals(spectator)) // Don't spectate self
-                .filter(p -> p.getGameMode() != GameMode.SPECTATOR) // Don't spectate other spectators
-                .sorted(Comparator.comparing(Player::getName))
-                .collect(Collectors.toList());
+            currentPriority = PRIORITY_ROTATION;
+
+            // Prefer a group with recent trigger activity over cycling individuals
+            if (groupShotEnabled) {
+                PlayerSpatialIndex.Cluster cluster = spatialIndex.getHottestCluster(groupShotMinPriority);
+                if (cluster != null) {
+                    setTarget(spatialIndex.getHottestMember(cluster), "group");
+                    framingGroup = true;
+                    restartRotation();
+                    saveState();
+                    return;
+                }
+            }
+
+            List<LivingEntity> players = new ArrayList<>();
+            for (Player p : Bukkit.getOnlinePlayers()) {
+                if (p.equals(spectator)) continue; // Don't spectate self
+                if (p.getGameMode() == GameMode.SPECTATOR) continue; // Don't spectate other spectators
+                if (p.isDead()) continue; // Wait for them to respawn
+                players.add(p);
+            }
+            // Bosses and named mobs take turns with the players
+            entityIndex.collectValid(players);
+            players.sort(Comparator.comparing(LivingEntity::getName).thenComparing(LivingEntity::getUniqueId));
 
             if (players.isEmpty()) {
                 currentTarget = null;
+                currentTargetId = null;
+                // Look again in a second
+                timers.cancel(rotationTimer);
+                rotationTimer = timers.schedule(20L, this::onRotationDue);
+                saveState();
                 return;
             }
 
-            if (currentTarget == null) {
-                setTarget(players.get(0));
-            } else {
-                int index = players.indexOf(currentTarget);
-                if (index == -1 || index + 1 >= players.size()) {
-                    setTarget(players.get(0)); // Loop back to start
-                } else {
-                    setTarget(players.get(index + 1));
+            // Compared by id, the current target may have left since the last rotation
+            int index = -1;
+            for (int i = 0; i < players.size() && currentTargetId != null; i++) {
+                if (players.get(i).getUniqueId().equals(currentTargetId)) {
+                    index = i;
+                    break;
                 }
             }
-            timeRemaining = duration;
+            if (index == -1 || index + 1 >= players.size()) {
+                setTarget(players.get(0), "rotation"); // Loop back to start
+            } else {
+                setTarget(players.get(index + 1), "rotation");
+            }
+            restartRotation();
+            saveState();
         }
 
         public void updateMovement() {
             if (currentTarget == null && currentLocationTarget == null) return;
 
+            SpectatorEvents.CameraSolve event = new SpectatorEvents.CameraSolve();
+            if (!event.isEnabled()) {
+                solveCamera();
+                return;
+            }
+
+            event.begin();
+            long lookupsBefore = CameraGeometry.getBlockLookups();
+            candidatesTried = 0;
+            solveCamera();
+            event.end();
+
+            if (event.shouldCommit()) {
+                event.session = spectator.getName();
+                event.target = isWatchingLocation() ? locationTargetName : currentTarget != null ? currentTarget.getName() : null;
+                event.perspective = isWatchingLocation() ? "death-location" : framingGroup ? "group" : perspective.name().toLowerCase();
+                event.blocksSampled = CameraGeometry.getBlockLookups() - lookupsBefore;
+                event.candidatesTried = candidatesTried;
+                event.evaluator = rayEvaluator.getName();
+                event.commit();
+            }
+        }
+
+        private void solveCamera() {
             // Handle location spectation (stationary camera at death location)
-            if (currentLocationTarget != null && locationSpectationTimeRemaining > 0) {
+            if (currentLocationTarget != null && isWatchingLocation()) {
                 updateDeathLocationSpectation();
                 return;
             }
 
             // Handle player target spectation (normal mode)
-            if (currentTarget == null || !currentTarget.isOnline()) return;
+            if (currentTarget == null) return;
+
+            if (framingGroup) {
+                PlayerSpatialIndex.Cluster cluster = spatialIndex.getCluster(currentTarget);
+                if (cluster != null && updateGroupMovement(cluster)) {
+                    return;
+                }
+                // Group dispersed or no clear shot, fall back to the anchor player
+            }
 
             if (perspective == PerspectiveMode.CINEMATIC) {
                 updateCinematicMovement();
@@ -375,147 +1034,97 @@ public class SpectatorManager {
 
         private void updateDeathLocationSpectation() {
             Location targetLoc = currentLocationTarget;
+            World world = targetLoc.getWorld();
+            double tx = targetLoc.getX();
+            double ty = targetLoc.getY();
+            double tz = targetLoc.getZ();
             
             // Cinematic movement around the death location
             angle += 0.008;
+            int bestAngleIndex = solveDeathOrbit(world, tx, ty, tz);
             
-            // Check all angles and count blocked blocks
-            int[] blockCounts = new int[8];
-            boolean[] canPlaceCamera = new boolean[8];
-            int minBlocks = Integer.MAX_VALUE;
-            int bestAngleIndex = -1;
-            boolean anyAngleClear = false;
-            boolean anyValidAngle = false;
-            
-            for (int i = 0; i < 8; i++) {
-                double testAngle = angle + (Math.PI / 4) * i;
-                double distance = cinematicDistanceMin + random.nextDouble() * (cinematicDistanceMax - cinematicDistanceMin);
-                double testX = distance * Math.cos(testAngle);
-                double testZ = distance * Math.sin(testAngle);
-                double hoverHeight = cinematicHeightMin + Math.sin(testAngle * 0.3) * (cinematicHeightMax - cinematicHeightMin) * 0.25;
-                
-                Location testCamLoc = targetLoc.clone().add(testX, hoverHeight, testZ);
-                
-                // Check if camera position is not inside a block
-                boolean cameraInBlock = isCameraInBlock(testCamLoc);
-                canPlaceCamera[i] = !cameraInBlock;
-                
-                if (!cameraInBlock) {
-                    anyValidAngle = true;
-                    int blockCount = countBlocksInLineOfSight(testCamLoc, targetLoc);
-                    blockCounts[i] = blockCount;
-                    
-                    // Track the angle with least blocks
-                    if (blockCount < minBlocks) {
-                        minBlocks = blockCount;
-                        bestAngleIndex = i;
-                        if (blockCount == 0) {
-                            anyAngleClear = true;
-                        }
-                    }
-                }
-            }
-            
-            Location camLoc;
-            
-            if (anyAngleClear && canPlaceCamera[bestAngleIndex]) {
-                // Use the angle with zero blocks and valid camera position
-                double bestAngle = angle + (Math.PI / 4) * bestAngleIndex;
-                double bestDistance = cinematicDistanceMin + random.nextDouble() * (cinematicDistanceMax - cinematicDistanceMin);
-                double bestX = bestDistance * Math.cos(bestAngle);
-                double bestZ = bestDistance * Math.sin(bestAngle);
-                double bestHoverHeight = cinematicHeightMin + Math.sin(bestAngle * 0.3) * (cinematicHeightMax - cinematicHeightMin) * 0.25;
-                camLoc = targetLoc.clone().add(bestX, bestHoverHeight, bestZ);
-                
-                // Make camera look at the death location
-                Location lookAt = targetLoc.clone().add(0, 1.0, 0);
-                Vector direction = lookAt.toVector().subtract(camLoc.toVector());
-                camLoc.setDirection(direction);
-                
-                angle = bestAngle;
-                spectator.teleport(camLoc);
-                showDeathLocationActionBar();
-            } else if (anyValidAngle && minBlocks < Integer.MAX_VALUE && minBlocks > 0) {
-                // Use the best valid angle with least blocks
-                double bestAngle = angle + (Math.PI / 4) * bestAngleIndex;
-                double bestDistance = cinematicDistanceMin + random.nextDouble() * (cinematicDistanceMax - cinematicDistanceMin);
-                double bestX = bestDistance * Math.cos(bestAngle);
-                double bestZ = bestDistance * Math.sin(bestAngle);
-                double bestHoverHeight = cinematicHeightMin + Math.sin(bestAngle * 0.3) * (cinematicHeightMax - cinematicHeightMin) * 0.25;
-                camLoc = targetLoc.clone().add(bestX, bestHoverHeight, bestZ);
-                
-                // Make camera look at the death location
-                Location lookAt = targetLoc.clone().add(0, 1.0, 0);
-                Vector direction = lookAt.toVector().subtract(camLoc.toVector());
-                camLoc.setDirection(direction);
-                
-                angle = bestAngle;
-                spectator.teleport(camLoc);
+            if (bestAngleIndex != -1) {
+                teleportCamera(cameraPose.toLocation(world));
                 showDeathLocationActionBar();
+
+                if (viewpointCacheEnabled && !deathViewpointRecorded && rays.getBlocks(bestAngleIndex) == 0) {
+                    viewpointCache.record(world, cameraPose.x, cameraPose.y, cameraPose.z, tx, ty, tz);
+                    deathViewpointRecorded = true;
+                }
             } else {
                 // Stay at death location first-person view
-                spectator.teleport(targetLoc.clone().add(0, 1.6, 0));
+                cameraPose.set(tx, ty + 1.6, tz);
+                cameraPose.yaw = targetLoc.getYaw();
+                cameraPose.pitch = targetLoc.getPitch();
+                teleportCamera(cameraPose.toLocation(world));
                 showDeathLocationActionBar();
             }
         }
 
+        // Puts the clearest orbit angle around the death location in cameraPose, or returns -1
+        private int solveDeathOrbit(World world, double tx, double ty, double tz) {
+            // Check all angles and keep the one with the fewest blocks in the way
+            rays.clear();
+            for (int i = 0; i < ORBIT_ANGLES; i++) {
+                double distance = cinematicDistanceMin + random.nextDouble() * (cinematicDistanceMax - cinematicDistanceMin);
+                rays.add(angle + (Math.PI / 4) * i, distance, cinematicHeightMin);
+            }
+            castRays(world, tx, ty, tz, (cinematicHeightMax - cinematicHeightMin) * 0.25, tx, ty, tz);
+            int bestAngleIndex = bestRay();
+
+            if (bestAngleIndex != -1) {
+                // Make camera look at the death location
+                cameraPose.lookAt(tx, ty + 1.0, tz);
+                angle += (Math.PI / 4) * bestAngleIndex;
+            }
+            return bestAngleIndex;
+        }
+
         private void updateCinematicMovement() {
-            Location targetLoc = currentTarget.getLocation();
+            Location targetLoc = currentTarget.getLocation(targetLocation);
+            World world = targetLoc.getWorld();
+            double tx = targetLoc.getX();
+            double ty = targetLoc.getY();
+            double tz = targetLoc.getZ();
             
             // Check if the target is in a very tight space (like a 2x1 tunnel)
-            if (isInTightSpace(targetLoc)) {
+            if (CameraGeometry.isInTightSpace(world, targetLoc.getBlockX(), targetLoc.getBlockY(), targetLoc.getBlockZ())) {
                 // Switch to first-person view by teleporting spectator to target location
                 spectator.setSpectatorTarget(currentTarget);
                 showPlayerNameActionBar();
                 return;
             }
 
-            long currentTime = System.currentTimeMillis();
-            double maxDistance = cinematicDistanceMax;
+            double maxDistance = cinematicDistanceMax + targetSizeOffset + 5;
 
-            // Check if we need to switch position (every 8 seconds or if view is blocked)
-            boolean needsSwitch = cinematicLocation == null || 
-                                  (currentTime - lastCinematicSwitch > 8000) || // Switch every 8 seconds
-                                  countBlocksInLineOfSight(cinematicLocation, targetLoc.clone().add(0, 1.6, 0)) > 0 ||
-                                  cinematicLocation.distance(targetLoc) > maxDistance + 5; // Too far
+            // Check if we need to switch position (reposition timer fired or view is blocked)
+            boolean needsSwitch = !hasCinematicPose ||
+                                  cinematicWorld != world ||
+                                  CameraGeometry.countBlocksInLineOfSight(world, cinematicPose.x, cinematicPose.y, cinematicPose.z, tx, ty + targetEyeHeight, tz) > 0 ||
+                                  cinematicPose.distanceSquared(tx, ty, tz) > maxDistance * maxDistance; // Too far
 
             if (needsSwitch) {
-                // Find a new spot
-                List<Location> candidates = new ArrayList<>();
-                for (int i = 0; i < 15; i++) {
-                    // Random angle and distance
-                    double angle = random.nextDouble() * Math.PI * 2;
-                    double distance = cinematicDistanceMin + random.nextDouble() * (cinematicDistanceMax - cinematicDistanceMin);
-                    double height = cinematicHeightMin + random.nextDouble() * (cinematicHeightMax - cinematicHeightMin);
-
-                    Location candidate = targetLoc.clone().add(
-                        distance * Math.cos(angle),
-                        height,
-                        distance * Math.sin(angle)
-                    );
-
-                    // Check if valid
-                    if (!isCameraInBlock(candidate) && countBlocksInLineOfSight(candidate, targetLoc.clone().add(0, 1.6, 0)) == 0) {
-                        candidates.add(candidate);
+                if (solveCinematic(world, tx, ty, tz)) {
+                    cinematicWorld = world;
+                    hasCinematicPose = true;
+                    timers.cancel(cinematicTimer);
+                    cinematicTimer = timers.schedule(160L, () -> hasCinematicPose = false); // Switch every 8 seconds
+                    if (viewpointCacheEnabled) {
+                        viewpointCache.record(world, cinematicPose.x, cinematicPose.y, cinematicPose.z, tx, ty, tz);
                     }
-                }
-
-                if (!candidates.isEmpty()) {
-                    cinematicLocation = candidates.get(random.nextInt(candidates.size()));
-                    lastCinematicSwitch = currentTime;
                     spectator.setSpectatorTarget(null);
                 } else {
                     // No valid spot found, switch to first person
-                    cinematicLocation = null;
+                    hasCinematicPose = false;
                 }
             }
 
             // Always look at the player
-            if (cinematicLocation != null) {
+            if (hasCinematicPose) {
                 spectator.setSpectatorTarget(null);
                 
                 // Smooth vertical aim to avoid shaking when jumping
-                double targetY = targetLoc.getY() + 1.6;
+                double targetY = ty + targetEyeHeight;
                 if (currentLookAtY == -1 || Math.abs(currentLookAtY - targetY) > 10) {
                     currentLookAtY = targetY;
                 } else {
@@ -523,12 +1132,8 @@ public class SpectatorManager {
                     currentLookAtY += (targetY - currentLookAtY) * 0.1;
                 }
                 
-                Location lookAt = targetLoc.clone();
-                lookAt.setY(currentLookAtY);
-                
-                Vector direction = lookAt.toVector().subtract(cinematicLocation.toVector());
-                cinematicLocation.setDirection(direction);
-                spectator.teleport(cinematicLocation);
+                cinematicPose.lookAt(tx, currentLookAtY, tz);
+                teleportCamera(cinematicPose.toLocation(world));
                 showPlayerNameActionBar();
             } else {
                 // Fallback to first person view
@@ -537,11 +1142,54 @@ public class SpectatorManager {
             }
         }
 
+        // Puts a new spot with a clear view of the target in cinematicPose, starting with the ones that worked here before
+        private boolean solveCinematic(World world, double tx, double ty, double tz) {
+            int candidateCount = 0;
+            if (findCachedViewpoint(world, tx, ty, tz, ty + targetEyeHeight, cameraPose)) {
+                cinematicCandidates[0] = cameraPose.x;
+                cinematicCandidates[1] = cameraPose.y;
+                cinematicCandidates[2] = cameraPose.z;
+                candidateCount = 1;
+            } else {
+                double distanceMin = cinematicDistanceMin + targetSizeOffset;
+                double distanceMax = cinematicDistanceMax + targetSizeOffset;
+                rays.clear();
+                for (int i = 0; i < CINEMATIC_CANDIDATES; i++) {
+                    // Random angle and distance
+                    double candidateAngle = random.nextDouble() * Math.PI * 2;
+                    double distance = distanceMin + random.nextDouble() * (distanceMax - distanceMin);
+                    double height = cinematicHeightMin + random.nextDouble() * (cinematicHeightMax - cinematicHeightMin);
+                    rays.add(candidateAngle, distance, height);
+                }
+                castRays(world, tx, ty, tz, 0, tx, ty + targetEyeHeight, tz);
+
+                // Keep the spots with a clear view
+                for (int i = 0; i < rays.size(); i++) {
+                    if (rays.getBlocks(i) == 0) {
+                        int offset = candidateCount * 3;
+                        cinematicCandidates[offset] = rays.getX(i);
+                        cinematicCandidates[offset + 1] = rays.getY(i);
+                        cinematicCandidates[offset + 2] = rays.getZ(i);
+                        candidateCount++;
+                    }
+                }
+            }
+
+            if (candidateCount == 0) return false;
+            int offset = random.nextInt(candidateCount) * 3;
+            cinematicPose.set(cinematicCandidates[offset], cinematicCandidates[offset + 1], cinematicCandidates[offset + 2]);
+            return true;
+        }
+
         private void updateFollowupMovement() {
-            Location targetLoc = currentTarget.getLocation();
+            Location targetLoc = currentTarget.getLocation(targetLocation);
+            World world = targetLoc.getWorld();
+            double tx = targetLoc.getX();
+            double ty = targetLoc.getY();
+            double tz = targetLoc.getZ();
             
             // Check if the target is in a very tight space (like a 2x1 tunnel)
-            if (isInTightSpace(targetLoc)) {
+            if (CameraGeometry.isInTightSpace(world, targetLoc.getBlockX(), targetLoc.getBlockY(), targetLoc.getBlockZ())) {
                 // Switch to first-person view by teleporting spectator to target location
                 spectator.setSpectatorTarget(currentTarget);
                 showPlayerNameActionBar();
@@ -554,75 +1202,8 @@ public class SpectatorManager {
             // Followup movement logic with orbital camera
             angle += 0.008;
             
-            // Check all angles and count blocked blocks
-            int[] blockCounts = new int[8];
-            boolean[] canPlaceCamera = new boolean[8];
-            int minBlocks = Integer.MAX_VALUE;
-            int bestAngleIndex = -1;
-            boolean anyAngleClear = false;
-            boolean anyValidAngle = false;
-            
-            for (int i = 0; i < 8; i++) {
-                double testAngle = angle + (Math.PI / 4) * i;
-                double testX = followupDistance * Math.cos(testAngle);
-                double testZ = followupDistance * Math.sin(testAngle);
-                double hoverHeight = followupHoverHeightOffset + Math.sin(testAngle * 0.3) * 0.5;
-                
-                Location testCamLoc = targetLoc.clone().add(testX, hoverHeight, testZ);
-                
-                // Check if camera position is not inside a block
-                boolean cameraInBlock = isCameraInBlock(testCamLoc);
-                canPlaceCamera[i] = !cameraInBlock;
-                
-                if (!cameraInBlock) {
-                    anyValidAngle = true;
-                    int blockCount = countBlocksInLineOfSight(testCamLoc, targetLoc);
-                    blockCounts[i] = blockCount;
-                    
-                    // Track the angle with least blocks
-                    if (blockCount < minBlocks) {
-                        minBlocks = blockCount;
-                        bestAngleIndex = i;
-                        if (blockCount == 0) {
-                            anyAngleClear = true;
-                        }
-                    }
-                }
-            }
-            
-            Location camLoc;
-            
-            if (anyAngleClear && canPlaceCamera[bestAngleIndex]) {
-                // Use the angle with zero blocks and valid camera position
-                double bestAngle = angle + (Math.PI / 4) * bestAngleIndex;
-                double bestX = followupDistance * Math.cos(bestAngle);
-                double bestZ = followupDistance * Math.sin(bestAngle);
-                double bestHoverHeight = followupHoverHeightOffset + Math.sin(bestAngle * 0.3) * 0.5;
-                camLoc = targetLoc.clone().add(bestX, bestHoverHeight, bestZ);
-                
-                // Make camera look at the target (specifically their eyes/head)
-                Location lookAt = targetLoc.clone().add(0, 1.6, 0);
-                Vector direction = lookAt.toVector().subtract(camLoc.toVector());
-                camLoc.setDirection(direction);
-                
-                angle = bestAngle;
-                spectator.teleport(camLoc);
-                showPlayerNameActionBar();
-            } else if (anyValidAngle && minBlocks < Integer.MAX_VALUE && minBlocks > 0) {
-                // Use the best valid angle with least blocks
-                double bestAngle = angle + (Math.PI / 4) * bestAngleIndex;
-                double bestX = followupDistance * Math.cos(bestAngle);
-                double bestZ = followupDistance * Math.sin(bestAngle);
-                double bestHoverHeight = followupHoverHeightOffset + Math.sin(bestAngle * 0.3) * 0.5;
-                camLoc = targetLoc.clone().add(bestX, bestHoverHeight, bestZ);
-                
-                // Make camera look at the target (specifically their eyes/head)
-                Location lookAt = targetLoc.clone().add(0, 1.6, 0);
-                Vector direction = lookAt.toVector().subtract(camLoc.toVector());
-                camLoc.setDirection(direction);
-                
-                angle = bestAngle;
-                spectator.teleport(camLoc);
+            if (solveFollowup(world, tx, ty, tz)) {
+                teleportCamera(cameraPose.toLocation(world));
                 showPlayerNameActionBar();
             } else {
                 // No valid angle found at normal distance - switch to first person
@@ -630,40 +1211,137 @@ public class SpectatorManager {
                 showPlayerNameActionBar();
             }
         }
-        
-        private boolean isCameraInBlock(Location loc) {
-            // Check feet, mid-body, and head/eye level
-            if (isBlockSolid(loc) || 
-                isBlockSolid(loc.clone().add(0, 1.0, 0)) || 
-                isBlockSolid(loc.clone().add(0, 1.7, 0))) {
-                return true;
+
+        // Puts the clearest orbit angle around the target in cameraPose
+        private boolean solveFollowup(World world, double tx, double ty, double tz) {
+            double distance = followupDistance + targetSizeOffset;
+            double hoverOffset = followupHoverHeightOffset + targetSizeOffset * 0.5;
+
+            // Check all angles and keep the one with the fewest blocks in the way
+            rays.clear();
+            for (int i = 0; i < ORBIT_ANGLES; i++) {
+                rays.add(angle + (Math.PI / 4) * i, distance, hoverOffset);
             }
-            
-            // Check width at feet level
-            if (isBlockSolid(loc.clone().add(0.35, 0, 0)) ||
-                isBlockSolid(loc.clone().add(-0.35, 0, 0)) ||
-                isBlockSolid(loc.clone().add(0, 0, 0.35)) ||
-                isBlockSolid(loc.clone().add(0, 0, -0.35))) {
-                return true;
+            castRays(world, tx, ty, tz, 0.5, tx, ty, tz);
+            int bestAngleIndex = bestRay();
+            if (bestAngleIndex == -1) return false;
+
+            // Make camera look at the target (specifically their eyes/head)
+            cameraPose.lookAt(tx, ty + targetEyeHeight, tz);
+            angle += (Math.PI / 4) * bestAngleIndex;
+            return true;
+        }
+
+        private boolean updateGroupMovement(PlayerSpatialIndex.Cluster cluster) {
+            World world = cluster.getWorld();
+            if (!world.equals(currentTarget.getWorld())) return false;
+
+            double cx = cluster.getCenterX();
+            double cy = cluster.getCenterY();
+            double cz = cluster.getCenterZ();
+            double radius = cluster.getRadius() + 1.0;
+
+            // Pull back far enough for the bounding sphere to fit in the field of view
+            double distance = Math.max(followupDistance, radius / Math.sin(groupShotFov / 2));
+            double hoverHeight = followupHoverHeightOffset + radius * 0.5;
+
+            angle += 0.008;
+
+            rays.clear();
+            for (int i = 0; i < ORBIT_ANGLES; i++) {
+                rays.add(angle + (Math.PI / 4) * i, distance, hoverHeight);
             }
+            castRays(world, cx, cy, cz, 0, cx, cy, cz);
+            int bestAngleIndex = bestRay();
 
-            // Check width at head level (to prevent head clipping into walls)
-            Location headLoc = loc.clone().add(0, 1.6, 0);
-            if (isBlockSolid(headLoc.clone().add(0.35, 0, 0)) ||
-                isBlockSolid(headLoc.clone().add(-0.35, 0, 0)) ||
-                isBlockSolid(headLoc.clone().add(0, 0, 0.35)) ||
-                isBlockSolid(headLoc.clone().add(0, 0, -0.35))) {
-                return true;
+            if (bestAngleIndex == -1) {
+                return false;
+            }
+
+            // Look at the middle of the group
+            cameraPose.lookAt(cx, cy, cz);
+            angle += (Math.PI / 4) * bestAngleIndex;
+            spectator.setSpectatorTarget(null);
+            teleportCamera(cameraPose.toLocation(world));
+            showGroupActionBar(cluster);
+            return true;
+        }
+
+        // Places the batched candidates, drops those inside blocks and counts what is in the way of the rest
+        private void castRays(World world, double centerX, double centerY, double centerZ, double wobble,
+                              double lookX, double lookY, double lookZ) {
+            rayEvaluator.place(rays, centerX, centerY, centerZ, wobble);
+            candidatesTried += rays.size();
+            rayEvaluator.countOccluders(world, rays, lookX, lookY, lookZ);
+        }
+
+        // First candidate with the fewest blocks in the way, or -1 if every one was inside a block
+        private int bestRay() {
+            int best = -1;
+            for (int i = 0; i < rays.size(); i++) {
+                if (rays.isActive(i) && (best == -1 || rays.getBlocks(i) < rays.getBlocks(best))) {
+                    best = i;
+                }
+            }
+            if (best != -1) {
+                cameraPose.set(rays.getX(best), rays.getY(best), rays.getZ(best));
+            }
+            return best;
+        }
+
+        private boolean findCachedViewpoint(World world, double tx, double ty, double tz, double lookY, CameraPose out) {
+            if (!viewpointCacheEnabled) return false;
+
+            cachedViewpoints.clear();
+            viewpointCache.collectNearby(world, tx, tz, cachedViewpoints);
+            if (cachedViewpoints.isEmpty()) return false;
+
+            // Try them in random order so the shots still vary between visits
+            Collections.shuffle(cachedViewpoints, random);
+            double minDistSq = cinematicDistanceMin * cinematicDistanceMin;
+            double maxDistSq = cinematicDistanceMax * cinematicDistanceMax;
+
+            for (int i = 0; i < cachedViewpoints.size(); i++) {
+                ViewpointCache.Viewpoint viewpoint = cachedViewpoints.get(i);
+                double dx = viewpoint.getX() - tx;
+                double dy = viewpoint.getY() - ty;
+                double dz = viewpoint.getZ() - tz;
+                double horizontalSq = dx * dx + dz * dz;
+                if (horizontalSq < minDistSq || horizontalSq > maxDistSq) continue;
+                if (dy < cinematicHeightMin || dy > cinematicHeightMax) continue;
+
+                // Blocks may have changed while the region was not in memory
+                candidatesTried++;
+                double x = viewpoint.getX();
+                double y = viewpoint.getY();
+                double z = viewpoint.getZ();
+                if (!CameraGeometry.isCameraInBlock(world, x, y, z) &&
+                    CameraGeometry.countBlocksInLineOfSight(world, x, y, z, tx, lookY, tz) == 0) {
+                    out.set(x, y, z);
+                    return true;
+                }
             }
-            
             return false;
         }
-        
-        private boolean isBlockSolid(Location loc) {
-            Block block = loc.getBlock();
-            return block.getType().isSolid() && !block.isPassable();
+
+        private void teleportCamera(Location location) {
+            SpectatorEvents.CameraTeleport event = new SpectatorEvents.CameraTeleport();
+            event.begin();
+            spectator.teleport(location);
+            metrics.countTeleport();
+            event.end();
+
+            if (event.shouldCommit()) {
+                event.session = spectator.getName();
+                event.target = isWatchingLocation() ? locationTargetName : currentTarget != null ? currentTarget.getName() : null;
+                event.world = location.getWorld().getName();
+                event.x = location.getX();
+                event.y = location.getY();
+                event.z = location.getZ();
+                event.commit();
+            }
         }
-        
+
         private void showPlayerNameActionBar() {
             // Show player name in ActionBar (subtitle bar)
             String playerName = currentTarget.getName();
@@ -676,64 +1354,26 @@ public class SpectatorManager {
             // Using spigot API to send action bar
             net.md_5.bungee.api.chat.TextComponent component = new net.md_5.bungee.api.chat.TextComponent(actionBarMessage);
             spectator.spigot().sendMessage(net.md_5.bungee.api.ChatMessageType.ACTION_BAR, component);
+            metrics.countPacket();
+        }
+
+        private void showGroupActionBar(PlayerSpatialIndex.Cluster cluster) {
+            // Show the anchor player and how many others are in the shot
+            String actionBarMessage = "§eSpectating: §a" + currentTarget.getName() + " §7+" + (cluster.size() - 1) + " nearby";
+
+            net.md_5.bungee.api.chat.TextComponent component = new net.md_5.bungee.api.chat.TextComponent(actionBarMessage);
+            spectator.spigot().sendMessage(net.md_5.bungee.api.ChatMessageType.ACTION_BAR, component);
+            metrics.countPacket();
         }
 
         private void showDeathLocationActionBar() {
             // Show death location spectation info in ActionBar
-            String actionBarMessage = "§cSpectating death of §e" + locationTargetName + " §c(" + locationSpectationTimeRemaining + "s)";
+            String actionBarMessage = "§cSpectating death of §e" + locationTargetName + " §c(" + (locationTimer.getRemainingTicks() + 19) / 20 + "s)";
             
             // Using spigot API to send action bar
             net.md_5.bungee.api.chat.TextComponent component = new net.md_5.bungee.api.chat.TextComponent(actionBarMessage);
             spectator.spigot().sendMessage(net.md_5.bungee.api.ChatMessageType.ACTION_BAR, component);
-        }
-        
-        private boolean isInTightSpace(Location loc) {
-            // Check if the target is in a very tight space (like a 2x1 tunnel)
-            // We check a 3x3x3 area around the player for open space
-            
-            Block centerBlock = loc.getBlock();
-            
-            // Count air/transparent blocks in a 3x3x3 area around the target
-            int emptyBlocks = 0;
-            int totalBlocks = 0;
-            
-            for (int x = -1; x <= 1; x++) {
-                for (int y = 0; y <= 2; y++) {
-                    for (int z = -1; z <= 1; z++) {
-                        Block block = centerBlock.getRelative(x, y, z);
-                        totalBlocks++;
-                        
-                        // Count air/transparent/passable blocks
-                        if (!block.getType().isSolid() || block.isPassable()) {
-                            emptyBlocks++;
-                        }
-                    }
-                }
-            }
-            
-            // If less than 50% of the space is empty, it's a tight space
-            // A 2x1 tunnel would have about 2/3 empty (the player's column and above)
-            // A normal open area would have much more empty space
-            return emptyBlocks < (totalBlocks * 0.5);
-        }
-
-        private int countBlocksInLineOfSight(Location from, Location to) {
-            Vector direction = to.toVector().subtract(from.toVector());
-            double distance = direction.length();
-            direction.normalize();
-            
-            int blockCount = 0;
-            // Check blocks along the line from camera to target
-            for (double d = 0.5; d < distance; d += 0.5) {
-                Location checkLoc = from.clone().add(direction.clone().multiply(d));
-                Block block = checkLoc.getBlock();
-                
-                // Count solid blocks that are not air or transparent
-                if (block.getType().isSolid() && !block.isPassable()) {
-                    blockCount++;
-                }
-            }
-            return blockCount;
+            metrics.countPacket();
         }
     }
 }
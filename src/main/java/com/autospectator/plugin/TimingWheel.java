@@ -0,0 +1,144 @@
+package com.autospectator.plugin;
+
+/**
+ * Hierarchical timing wheel driven by the server tick. Each level has 64 slots;
+ * a timer sits on the level of the highest 6-bit group in which its deadline
+ * differs from the current tick and cascades down as that group is reached.
+ * Scheduling and cancelling are O(1) and only due slots are touched per tick.
+ */
+public class TimingWheel {
+
+    private static final int SLOT_BITS = 6;
+    private static final int WHEEL_SIZE = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = WHEEL_SIZE - 1;
+    private static final int LEVELS = 5;
+    // Under one top-level slot (about 9.7 days), so a deadline is never more
+    // than one slot ahead on the top level and is cascaded the first time the
+    // wheel reaches that slot
+    private static final long MAX_DELAY = (1L << (SLOT_BITS * (LEVELS - 1))) - 1;
+
+    private final Timeout[][] slots = new Timeout[LEVELS][WHEEL_SIZE];
+    private long currentTick = 0;
+    private int size = 0;
+
+    public final class Timeout {
+        private final Runnable task;
+        private long deadline;
+        private int level;
+        private int slot;
+        private boolean pending;
+        private Timeout prev;
+        private Timeout next;
+
+        private Timeout(Runnable task) {
+            this.task = task;
+        }
+
+        public boolean isPending() {
+            return pending;
+        }
+
+        public long getRemainingTicks() {
+            return pending ? deadline - currentTick : 0;
+        }
+
+        public void cancel() {
+            if (pending) {
+                unlink(this);
+                size--;
+            }
+        }
+    }
+
+    // Number of pending timers
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Runs {@code task} on the main thread after {@code delayTicks} ticks (at least one).
+     */
+    public Timeout schedule(long delayTicks, Runnable task) {
+        Timeout timeout = new Timeout(task);
+        timeout.deadline = currentTick + Math.max(1L, Math.min(delayTicks, MAX_DELAY));
+        link(timeout);
+        size++;
+        return timeout;
+    }
+
+    /**
+     * Cancels {@code timeout} if it is still pending and returns null, so callers
+     * can write {@code timer = wheel.cancel(timer)}.
+     */
+    public Timeout cancel(Timeout timeout) {
+        if (timeout != null) {
+            timeout.cancel();
+        }
+        return null;
+    }
+
+    /**
+     * Advances the wheel by one tick and runs every timer that is now due.
+     */
+    public void tick() {
+        currentTick++;
+
+        // Move timers from higher levels down, outermost first so they can
+        // fall through several levels in the same tick
+        for (int level = LEVELS - 1; level > 0; level--) {
+            int shift = SLOT_BITS * level;
+            if ((currentTick & ((1L << shift) - 1)) == 0) {
+                cascade(level, (int) ((currentTick >>> shift) & SLOT_MASK));
+            }
+        }
+
+        // Pop one at a time so a task may cancel other timers due this tick
+        int index = (int) (currentTick & SLOT_MASK);
+        Timeout timeout;
+        while ((timeout = slots[0][index]) != null) {
+            unlink(timeout);
+            size--;
+            timeout.task.run();
+        }
+    }
+
+    private void cascade(int level, int index) {
+        Timeout timeout;
+        while ((timeout = slots[level][index]) != null) {
+            unlink(timeout);
+            link(timeout);
+        }
+    }
+
+    private void link(Timeout timeout) {
+        long diff = timeout.deadline ^ currentTick;
+        // Crossing a 2^30 boundary differs in bits above the top level; the
+        // deadline is still within the next top-level slot, so it waits there
+        int level = diff == 0 ? 0 : Math.min(LEVELS - 1, (63 - Long.numberOfLeadingZeros(diff)) / SLOT_BITS);
+        int index = (int) ((timeout.deadline >>> (SLOT_BITS * level)) & SLOT_MASK);
+
+        timeout.level = level;
+        timeout.slot = index;
+        timeout.pending = true;
+        timeout.prev = null;
+        timeout.next = slots[level][index];
+        if (timeout.next != null) {
+            timeout.next.prev = timeout;
+        }
+        slots[level][index] = timeout;
+    }
+
+    private void unlink(Timeout timeout) {
+        if (timeout.prev != null) {
+            timeout.prev.next = timeout.next;
+        } else {
+            slots[timeout.level][timeout.slot] = timeout.next;
+        }
+        if (timeout.next != null) {
+            timeout.next.prev = timeout.prev;
+        }
+        timeout.prev = null;
+        timeout.next = null;
+        timeout.pending = false;
+    }
+}
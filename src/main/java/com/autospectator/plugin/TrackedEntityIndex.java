@@ -0,0 +1,119 @@
+package com.autospectator.plugin;
+
+import org.bukkit.Bukkit;
+import org.bukkit.World;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.EntityType;
+import org.bukkit.entity.LivingEntity;
+import org.bukkit.entity.Player;
+
+import java.util.*;
+
+/**
+ * Non-player entities that cameras may film (bosses, named mobs). Kept up to
+ * date from spawn, death and entity load/unload events, plus name tags and
+ * damage for mobs named after they spawned, so target selection never has to
+ * scan the worlds.
+ */
+public class TrackedEntityIndex {
+
+    private final boolean enabled;
+    private final boolean trackNamed;
+    private final Set<EntityType> types = EnumSet.noneOf(EntityType.class);
+    private final Map<UUID, LivingEntity> entities = new LinkedHashMap<>();
+
+    public TrackedEntityIndex(Main plugin) {
+        this.enabled = plugin.getConfig().getBoolean("entity-targets.enabled", true);
+        this.trackNamed = plugin.getConfig().getBoolean("entity-targets.named", true);
+
+        for (String name : plugin.getConfig().getStringList("entity-targets.types")) {
+            try {
+                types.add(EntityType.valueOf(name.toUpperCase(Locale.ROOT)));
+            } catch (IllegalArgumentException e) {
+                plugin.getLogger().warning("Unknown entity type in entity-targets.types: " + name);
+            }
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Picks up entities that are already loaded when tracking starts, i.e. when
+     * the first camera session starts. Later changes arrive through events.
+     */
+    public void seedLoadedEntities() {
+        if (!enabled) return;
+        for (World world : Bukkit.getWorlds()) {
+            for (LivingEntity entity : world.getLivingEntities()) {
+                add(entity);
+            }
+        }
+    }
+
+    public boolean isEligible(Entity entity) {
+        if (!(entity instanceof LivingEntity) || entity instanceof Player) return false;
+        return types.contains(entity.getType()) || (trackNamed && entity.getCustomName() != null);
+    }
+
+    public void add(Entity entity) {
+        if (enabled && isEligible(entity)) {
+            entities.put(entity.getUniqueId(), (LivingEntity) entity);
+        }
+    }
+
+    public void addAll(Collection<Entity> loaded) {
+        for (Entity entity : loaded) {
+            add(entity);
+        }
+    }
+
+    public void remove(Entity entity) {
+        entities.remove(entity.getUniqueId());
+    }
+
+    public void removeAll(Collection<Entity> unloaded) {
+        for (Entity entity : unloaded) {
+            entities.remove(entity.getUniqueId());
+        }
+    }
+
+    public void clear() {
+        entities.clear();
+    }
+
+    public boolean contains(Entity entity) {
+        return entities.containsKey(entity.getUniqueId());
+    }
+
+    public int size() {
+        return entities.size();
+    }
+
+    public LivingEntity get(UUID id) {
+        return entities.get(id);
+    }
+
+    // Entities removed without an event (e.g. despawned) are dropped here
+    public void collectValid(List<LivingEntity> out) {
+        Iterator<LivingEntity> it = entities.values().iterator();
+        while (it.hasNext()) {
+            LivingEntity entity = it.next();
+            if (entity.isValid()) {
+                out.add(entity);
+            } else if (entity.isDead()) {
+                it.remove();
+            }
+        }
+    }
+
+    public LivingEntity findByName(String name) {
+        for (LivingEntity entity : entities.values()) {
+            if (entity.isValid() && name.equalsIgnoreCase(entity.getName())) {
+                return entity;
+            }
+        }
+        return null;
+    }
+}
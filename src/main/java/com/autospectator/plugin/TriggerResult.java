@@ -0,0 +1,20 @@
+package com.autospectator.plugin;
+
+/**
+ * Outcome of a trigger or forced-target request submitted through
+ * {@link AutoSpectatorService}.
+ */
+public enum TriggerResult {
+    /** At least one camera switched to, or kept watching, the target. */
+    ACCEPTED,
+    /** Cameras are busy with something more important, cooling down, or in manual mode, or the target is a spectator. */
+    IGNORED,
+    /** No camera session is running (or the requested spectator has none). */
+    NO_SESSIONS,
+    /** The target is not online, or is not a tracked entity that is still loaded. */
+    TARGET_OFFLINE,
+    /** The request expired before the next server tick processed it. */
+    EXPIRED,
+    /** The plugin was disabled before the request was processed. */
+    SHUT_DOWN
+}
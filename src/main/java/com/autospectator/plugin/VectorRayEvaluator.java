@@ -0,0 +1,137 @@
+package com.autospectator.plugin;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+import org.bukkit.World;
+
+/**
+ * Places candidates and walks their rays in SIMD lanes with the incubator
+ * Vector API: each step advances every ray of a group at once and computes
+ * their voxel indices together, then the solid cells are read from the voxel
+ * buffer. Only loaded through {@link RayEvaluator#create} when the server runs
+ * with {@code --add-modules jdk.incubator.vector}.
+ */
+final class VectorRayEvaluator implements RayEvaluator {
+
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    private final VoxelBuffer voxels = new VoxelBuffer();
+    private final long[] indices = new long[SPECIES.length()];
+    // Totals of the last walk, for its event
+    private int walked;
+    private double totalDistance;
+    private int sampled;
+    private int solid;
+
+    @Override
+    public String getName() {
+        return "vector (" + SPECIES.length() + " lanes)";
+    }
+
+    @Override
+    public void place(RayBatch rays, double centerX, double centerY, double centerZ, double wobble) {
+        for (int i = 0; i < rays.size; i += SPECIES.length()) {
+            VectorMask<Double> lanes = SPECIES.indexInRange(i, rays.size);
+            DoubleVector angle = DoubleVector.fromArray(SPECIES, rays.angle, i, lanes);
+            DoubleVector radius = DoubleVector.fromArray(SPECIES, rays.radius, i, lanes);
+            DoubleVector height = DoubleVector.fromArray(SPECIES, rays.height, i, lanes);
+
+            radius.mul(angle.lanewise(VectorOperators.COS)).add(centerX).intoArray(rays.x, i, lanes);
+            radius.mul(angle.lanewise(VectorOperators.SIN)).add(centerZ).intoArray(rays.z, i, lanes);
+            DoubleVector wobbleY = angle.mul(0.3).lanewise(VectorOperators.SIN).mul(wobble);
+            DoubleVector.broadcast(SPECIES, centerY).add(height).add(wobbleY).intoArray(rays.y, i, lanes);
+        }
+    }
+
+    @Override
+    public void countOccluders(World world, RayBatch rays, double targetX, double targetY, double targetZ) {
+        if (!voxels.reset(world, rays, targetX, targetY, targetZ)) {
+            ScalarRayEvaluator.countDirect(world, rays, targetX, targetY, targetZ);
+            return;
+        }
+        voxels.skipCamerasInBlocks(rays);
+
+        // The walk is a method of its own; inlined here, the JIT could no longer keep the event off the heap
+        SpectatorEvents.OcclusionWalk event = new SpectatorEvents.OcclusionWalk();
+        event.begin();
+        walk(rays, targetX, targetY, targetZ);
+        ScalarRayEvaluator.commitWalk(event, walked, totalDistance, sampled, solid);
+    }
+
+    private void walk(RayBatch rays, double targetX, double targetY, double targetZ) {
+        int walked = 0;
+        double totalDistance = 0;
+        int sampled = 0;
+        int solid = 0;
+
+        double originX = voxels.getOriginX();
+        double originY = voxels.getOriginY();
+        double originZ = voxels.getOriginZ();
+        long sizeY = voxels.getSizeY();
+        long sizeZ = voxels.getSizeZ();
+
+        for (int i = 0; i < rays.size; i += SPECIES.length()) {
+            long activeBits = 0;
+            for (int lane = 0; lane < SPECIES.length() && i + lane < rays.size; lane++) {
+                if (rays.active[i + lane]) {
+                    activeBits |= 1L << lane;
+                }
+            }
+            if (activeBits == 0) continue;
+            VectorMask<Double> active = VectorMask.fromLong(SPECIES, activeBits);
+
+            DoubleVector fromX = DoubleVector.fromArray(SPECIES, rays.x, i, active);
+            DoubleVector fromY = DoubleVector.fromArray(SPECIES, rays.y, i, active);
+            DoubleVector fromZ = DoubleVector.fromArray(SPECIES, rays.z, i, active);
+            DoubleVector dx = DoubleVector.broadcast(SPECIES, targetX).sub(fromX);
+            DoubleVector dy = DoubleVector.broadcast(SPECIES, targetY).sub(fromY);
+            DoubleVector dz = DoubleVector.broadcast(SPECIES, targetZ).sub(fromZ);
+            DoubleVector distance = dx.mul(dx).add(dy.mul(dy)).add(dz.mul(dz)).sqrt();
+            dx = dx.div(distance);
+            dy = dy.div(distance);
+            dz = dz.div(distance);
+
+            // Relative to the box so the positions are non-negative and D2L floors them
+            fromX = fromX.sub(originX);
+            fromY = fromY.sub(originY);
+            fromZ = fromZ.sub(originZ);
+
+            for (int lane = 0; lane < SPECIES.length() && i + lane < rays.size; lane++) {
+                if (rays.active[i + lane]) {
+                    rays.blocks[i + lane] = 0;
+                }
+            }
+            walked += Long.bitCount(activeBits);
+            totalDistance += distance.reduceLanes(VectorOperators.ADD, active);
+
+            for (double d = 0.5; ; d += 0.5) {
+                VectorMask<Double> stepping = active.and(distance.compare(VectorOperators.GT, d));
+                long bits = stepping.toLong();
+                if (bits == 0) break;
+
+                LongVector localX = (LongVector) fromX.add(dx.mul(d)).convert(VectorOperators.D2L, 0);
+                LongVector localY = (LongVector) fromY.add(dy.mul(d)).convert(VectorOperators.D2L, 0);
+                LongVector localZ = (LongVector) fromZ.add(dz.mul(d)).convert(VectorOperators.D2L, 0);
+                localX.mul(sizeY).add(localY).mul(sizeZ).add(localZ).intoArray(indices, 0);
+
+                sampled += Long.bitCount(bits);
+                while (bits != 0) {
+                    int lane = Long.numberOfTrailingZeros(bits);
+                    bits &= bits - 1;
+                    if (voxels.isSolid(indices[lane])) {
+                        rays.blocks[i + lane]++;
+                        solid++;
+                    }
+                }
+            }
+        }
+
+        this.walked = walked;
+        this.totalDistance = totalDistance;
+        this.sampled = sampled;
+        this.solid = solid;
+    }
+}
@@ -0,0 +1,393 @@
+package com.autospectator.plugin;
+
+import org.bukkit.Bukkit;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+/**
+ * Remembers camera positions that were found to be clear, keyed by the chunk of
+ * the location they were filming. Chunks are grouped in 32x32 regions which are
+ * loaded lazily from disk, evicted in LRU order and written back when dirty.
+ */
+public class ViewpointCache {
+
+    private static final int FILE_MAGIC = 0x41535650; // "ASVP"
+    private static final int FILE_VERSION = 1;
+    private static final double DUPLICATE_DISTANCE_SQ = 2.0 * 2.0;
+    private static final double INVALIDATE_DISTANCE_SQ = 2.0 * 2.0;
+    // A region is 32 by 32 chunks
+    private static final int CHUNKS_PER_REGION = 32 * 32;
+
+    private final Main plugin;
+    private final File folder;
+    private final int maxRegions;
+    private final int maxPerChunk;
+    // Longest horizontal sight line recorded, which bounds how far a block change reaches
+    private double maxSightDistance;
+
+    // Keyed by regionKey(), so looking up a region never allocates
+    private final LongObjectMap<Region> regions;
+    private final List<Region> regionList = new ArrayList<>();
+    private final LongObjectMap<Boolean> loading = new LongObjectMap<>(16);
+    private final List<UUID> worlds = new ArrayList<>();
+    private long useCounter = 0;
+    private final ExecutorService io;
+
+    public ViewpointCache(Main plugin) {
+        this.plugin = plugin;
+        this.folder = new File(plugin.getDataFolder(), "viewpoints");
+        this.maxRegions = Math.max(1, plugin.getConfig().getInt("viewpoint-cache.max-regions", 64));
+        // Stored as one byte per chunk in the region files
+        this.maxPerChunk = Math.min(255, Math.max(1, plugin.getConfig().getInt("viewpoint-cache.max-per-chunk", 8)));
+        this.maxSightDistance = Math.max(plugin.getConfig().getDouble("cinematic.distance-max", 20),
+            plugin.getConfig().getDouble("followup.distance", 5.0));
+
+        this.regions = new LongObjectMap<>(maxRegions + 1);
+
+        // Single thread so writes and reads of the same region never overlap
+        this.io = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "AutoSpectator-Viewpoints");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public static final class Viewpoint {
+        private final double x, y, z;
+        private final double anchorX, anchorY, anchorZ;
+
+        private Viewpoint(double x, double y, double z, double anchorX, double anchorY, double anchorZ) {
+            this.x = x;
+            this.y = y;
+            this.z = z;
+            this.anchorX = anchorX;
+            this.anchorY = anchorY;
+            this.anchorZ = anchorZ;
+        }
+
+        public double getX() {
+            return x;
+        }
+
+        public double getY() {
+            return y;
+        }
+
+        public double getZ() {
+            return z;
+        }
+    }
+
+    private static final class Region {
+        private final UUID world;
+        private final int x, z;
+        // Indexed by (chunkX & 31) | (chunkZ & 31) << 5, null for chunks without viewpoints
+        @SuppressWarnings("unchecked")
+        private final List<Viewpoint>[] chunks = (List<Viewpoint>[]) new List<?>[CHUNKS_PER_REGION];
+        private boolean dirty;
+        // Least recently used regions are evicted first
+        private long lastUsed;
+
+        private Region(UUID world, int x, int z) {
+            this.world = world;
+            this.x = x;
+            this.z = z;
+        }
+    }
+
+    // World index in the top 16 bits, then 24 bits each of region x and z,
+    // which covers the 30 million block world border
+    private long regionKey(UUID world, int chunkX, int chunkZ) {
+        return ((long) worldIndex(world) << 48) | ((long) ((chunkX >> 5) & 0xFFFFFF) << 24) | ((chunkZ >> 5) & 0xFFFFFF);
+    }
+
+    private int worldIndex(UUID world) {
+        for (int i = 0; i < worlds.size(); i++) {
+            if (worlds.get(i).equals(world)) return i;
+        }
+        worlds.add(world);
+        return worlds.size() - 1;
+    }
+
+    private static int localIndex(int chunkX, int chunkZ) {
+        return (chunkX & 31) | ((chunkZ & 31) << 5);
+    }
+
+    /**
+     * Collects cached viewpoints filming the chunks around {@code target}. Regions
+     * that are not in memory yet are loaded in the background and contribute on a
+     * later call.
+     */
+    public void collectNearby(World targetWorld, double x, double z, List<Viewpoint> out) {
+        UUID world = targetWorld.getUID();
+        int centerX = CameraGeometry.floor(x) >> 4;
+        int centerZ = CameraGeometry.floor(z) >> 4;
+
+        for (int cx = centerX - 1; cx <= centerX + 1; cx++) {
+            for (int cz = centerZ - 1; cz <= centerZ + 1; cz++) {
+                Region region = getRegion(world, cx, cz);
+                if (region == null) continue;
+                List<Viewpoint> list = region.chunks[localIndex(cx, cz)];
+                if (list == null) continue;
+                // One at a time, addAll would copy the list into a new array
+                for (int i = 0; i < list.size(); i++) {
+                    out.add(list.get(i));
+                }
+            }
+        }
+    }
+
+    /**
+     * Stores a camera position that had a clear view of the anchor (the filmed
+     * entity's feet).
+     */
+    public void record(World anchorWorld, double x, double y, double z, double anchorX, double anchorY, double anchorZ) {
+        UUID world = anchorWorld.getUID();
+        int chunkX = CameraGeometry.floor(anchorX) >> 4;
+        int chunkZ = CameraGeometry.floor(anchorZ) >> 4;
+
+        Region region = getRegion(world, chunkX, chunkZ);
+        if (region == null) return; // Still loading, we'll learn it again later
+
+        int index = localIndex(chunkX, chunkZ);
+        List<Viewpoint> list = region.chunks[index];
+        if (list == null) {
+            list = new ArrayList<>(2);
+            region.chunks[index] = list;
+        }
+        for (Viewpoint v : list) {
+            double dx = v.x - x;
+            double dy = v.y - y;
+            double dz = v.z - z;
+            if (dx * dx + dy * dy + dz * dz < DUPLICATE_DISTANCE_SQ) {
+                return;
+            }
+        }
+
+        if (list.size() >= maxPerChunk) {
+            list.remove(0); // Oldest first
+        }
+        list.add(new Viewpoint(x, y, z, anchorX, anchorY + 1.6, anchorZ));
+        region.dirty = true;
+
+        // Large targets like dragons are filmed from further than the configured distance
+        double sightX = x - anchorX;
+        double sightZ = z - anchorZ;
+        double sightSq = sightX * sightX + sightZ * sightZ;
+        if (sightSq > maxSightDistance * maxSightDistance) {
+            maxSightDistance = Math.sqrt(sightSq);
+        }
+    }
+
+    /**
+     * Drops viewpoints whose camera or line of sight passes near a changed block.
+     * Only regions in memory are checked; entries on disk are validated again
+     * before they are used.
+     */
+    public void invalidate(Block block) {
+        UUID world = block.getWorld().getUID();
+        double bx = block.getX() + 0.5;
+        double by = block.getY() + 0.5;
+        double bz = block.getZ() + 0.5;
+        int blockChunkX = block.getX() >> 4;
+        int blockChunkZ = block.getZ() >> 4;
+
+        // A sight line passing near the block can be anchored this many chunks away
+        int reach = (int) Math.ceil((maxSightDistance + Math.sqrt(INVALIDATE_DISTANCE_SQ)) / 16);
+        for (int cx = blockChunkX - reach; cx <= blockChunkX + reach; cx++) {
+            for (int cz = blockChunkZ - reach; cz <= blockChunkZ + reach; cz++) {
+                Region region = regions.get(regionKey(world, cx, cz));
+                if (region == null) continue;
+                List<Viewpoint> list = region.chunks[localIndex(cx, cz)];
+                if (list == null) continue;
+                if (list.removeIf(v -> distanceToSightLineSq(v, bx, by, bz) < INVALIDATE_DISTANCE_SQ)) {
+                    region.dirty = true;
+                    if (list.isEmpty()) {
+                        region.chunks[localIndex(cx, cz)] = null;
+                    }
+                }
+            }
+        }
+    }
+
+    private static double distanceToSightLineSq(Viewpoint v, double px, double py, double pz) {
+        double dx = v.anchorX - v.x;
+        double dy = v.anchorY - v.y;
+        double dz = v.anchorZ - v.z;
+        double lengthSq = dx * dx + dy * dy + dz * dz;
+        double t = 0;
+        if (lengthSq > 0) {
+            t = ((px - v.x) * dx + (py - v.y) * dy + (pz - v.z) * dz) / lengthSq;
+            t = Math.max(0, Math.min(1, t));
+        }
+        double cx = v.x + dx * t - px;
+        double cy = v.y + dy * t - py;
+        double cz = v.z + dz * t - pz;
+        return cx * cx + cy * cy + cz * cz;
+    }
+
+    private Region getRegion(UUID world, int chunkX, int chunkZ) {
+        long key = regionKey(world, chunkX, chunkZ);
+        Region region = regions.get(key);
+        if (region != null) {
+            region.lastUsed = ++useCounter;
+            return region;
+        }
+        if (loading.containsKey(key)) return null;
+
+        loading.put(key, Boolean.TRUE);
+        int regionX = chunkX >> 5;
+        int regionZ = chunkZ >> 5;
+        io.execute(() -> {
+            Region loaded = read(world, regionX, regionZ);
+            if (!plugin.isEnabled()) return;
+            // Hand over to the main thread; the cache itself is not thread safe
+            Bukkit.getScheduler().runTask(plugin, () -> {
+                loading.remove(key);
+                if (regions.get(key) == null) {
+                    add(key, loaded);
+                }
+            });
+        });
+        return null;
+    }
+
+    private void add(long key, Region region) {
+        region.lastUsed = ++useCounter;
+        regions.put(key, region);
+        regionList.add(region);
+        if (regionList.size() <= maxRegions) return;
+
+        Region eldest = regionList.get(0);
+        for (int i = 1; i < regionList.size(); i++) {
+            if (regionList.get(i).lastUsed < eldest.lastUsed) {
+                eldest = regionList.get(i);
+            }
+        }
+        if (eldest.dirty) {
+            writeAsync(eldest);
+        }
+        regionList.remove(eldest);
+        regions.remove(regionKey(eldest.world, eldest.x << 5, eldest.z << 5));
+    }
+
+    private File regionFile(UUID world, int regionX, int regionZ) {
+        return new File(new File(folder, world.toString()), "r." + regionX + "." + regionZ + ".bin");
+    }
+
+    private Region read(UUID world, int regionX, int regionZ) {
+        File file = regionFile(world, regionX, regionZ);
+        Region region = new Region(world, regionX, regionZ);
+        if (!file.exists()) return region;
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != FILE_MAGIC || in.readUnsignedByte() != FILE_VERSION) {
+                plugin.getLogger().warning("Ignoring unknown viewpoint cache file " + file.getName());
+                return region;
+            }
+            int chunkCount = in.readUnsignedShort();
+            for (int i = 0; i < chunkCount; i++) {
+                int index = in.readUnsignedShort();
+                if (index >= CHUNKS_PER_REGION) throw new IOException("Chunk index " + index + " out of range");
+                int count = in.readUnsignedByte();
+                List<Viewpoint> list = new ArrayList<>(count);
+                for (int j = 0; j < count; j++) {
+                    list.add(new Viewpoint(in.readFloat(), in.readFloat(), in.readFloat(),
+                        in.readFloat(), in.readFloat(), in.readFloat()));
+                }
+                region.chunks[index] = list;
+            }
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.WARNING, "Failed to read viewpoint cache " + file.getName(), e);
+        }
+        return region;
+    }
+
+    // Serialized on the calling thread so the I/O thread never sees a live region
+    private static byte[] serialize(Region region) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(FILE_MAGIC);
+            out.writeByte(FILE_VERSION);
+            int chunkCount = 0;
+            for (List<Viewpoint> list : region.chunks) {
+                if (list != null) chunkCount++;
+            }
+            out.writeShort(chunkCount);
+            for (int index = 0; index < CHUNKS_PER_REGION; index++) {
+                List<Viewpoint> list = region.chunks[index];
+                if (list == null) continue;
+                out.writeShort(index);
+                out.writeByte(list.size());
+                for (Viewpoint v : list) {
+                    out.writeFloat((float) v.x);
+                    out.writeFloat((float) v.y);
+                    out.writeFloat((float) v.z);
+                    out.writeFloat((float) v.anchorX);
+                    out.writeFloat((float) v.anchorY);
+                    out.writeFloat((float) v.anchorZ);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private void writeAsync(Region region) {
+        byte[] data = serialize(region);
+        region.dirty = false;
+        File file = regionFile(region.world, region.x, region.z);
+        io.execute(() -> write(file, data));
+    }
+
+    private void write(File file, byte[] data) {
+        try {
+            File parent = file.getParentFile();
+            if (!parent.exists() && !parent.mkdirs()) {
+                throw new IOException("Could not create " + parent);
+            }
+            File tmp = new File(parent, file.getName() + ".tmp");
+            Files.write(tmp.toPath(), data);
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.WARNING, "Failed to write viewpoint cache " + file.getName(), e);
+        }
+    }
+
+    /**
+     * Queues every dirty region for writing in the background.
+     */
+    public void saveDirty() {
+        for (Region region : regionList) {
+            if (region.dirty) {
+                writeAsync(region);
+            }
+        }
+    }
+
+    /**
+     * Writes pending changes and waits for the I/O thread to finish. Only called
+     * on plugin disable.
+     */
+    public void close() {
+        saveDirty();
+        io.shutdown();
+        try {
+            if (!io.awaitTermination(5, TimeUnit.SECONDS)) {
+                plugin.getLogger().warning("Timed out writing the viewpoint cache.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.autospectator.plugin;
+
+import org.bukkit.World;
+
+import java.util.Arrays;
+
+/**
+ * Dense box of block solidity around the candidates of one batch and their
+ * rays, filled on first touch. Rays of a solve converge on the same target, so
+ * most of their samples near it are looked up once instead of once per ray, and
+ * the in-block test of each candidate reads the same cells. Cells are
+ * invalidated by bumping a generation counter rather than clearing the arrays.
+ */
+final class VoxelBuffer {
+
+    // 64 KiB of cells; cinematic searches at the default distances need about a third of it
+    private static final int MAX_CELLS = 1 << 16;
+
+    private final int[] stamps = new int[MAX_CELLS];
+    private final boolean[] solid = new boolean[MAX_CELLS];
+    private int generation = 0;
+
+    private World world;
+    private int originX, originY, originZ;
+    private int sizeY, sizeZ;
+
+    /**
+     * Fits the box around the camera hull of every active candidate and the
+     * target. Returns false if it would be too large, in which case the caller
+     * tests the candidates against the world directly.
+     */
+    boolean reset(World world, RayBatch rays, double targetX, double targetY, double targetZ) {
+        double minX = targetX, minY = targetY, minZ = targetZ;
+        double maxX = targetX, maxY = targetY, maxZ = targetZ;
+        for (int i = 0; i < rays.size; i++) {
+            if (!rays.active[i]) continue;
+            minX = Math.min(minX, rays.x[i] - CameraGeometry.CAMERA_HALF_WIDTH);
+            minY = Math.min(minY, rays.y[i]);
+            minZ = Math.min(minZ, rays.z[i] - CameraGeometry.CAMERA_HALF_WIDTH);
+            maxX = Math.max(maxX, rays.x[i] + CameraGeometry.CAMERA_HALF_WIDTH);
+            maxY = Math.max(maxY, rays.y[i] + CameraGeometry.CAMERA_HEIGHT);
+            maxZ = Math.max(maxZ, rays.z[i] + CameraGeometry.CAMERA_HALF_WIDTH);
+        }
+
+        // One cell of margin so rounding along a ray never leaves the box
+        int x0 = CameraGeometry.floor(minX) - 1;
+        int y0 = CameraGeometry.floor(minY) - 1;
+        int z0 = CameraGeometry.floor(minZ) - 1;
+        long sx = CameraGeometry.floor(maxX) + 2L - x0;
+        long sy = CameraGeometry.floor(maxY) + 2L - y0;
+        long sz = CameraGeometry.floor(maxZ) + 2L - z0;
+        if (sx * sy * sz > MAX_CELLS) return false;
+
+        this.world = world;
+        this.originX = x0;
+        this.originY = y0;
+        this.originZ = z0;
+        this.sizeY = (int) sy;
+        this.sizeZ = (int) sz;
+
+        if (++generation == 0) {
+            Arrays.fill(stamps, 0);
+            generation = 1;
+        }
+        return true;
+    }
+
+    int getOriginX() {
+        return originX;
+    }
+
+    int getOriginY() {
+        return originY;
+    }
+
+    int getOriginZ() {
+        return originZ;
+    }
+
+    int getSizeY() {
+        return sizeY;
+    }
+
+    int getSizeZ() {
+        return sizeZ;
+    }
+
+    // Drops the candidates where the camera would be inside a block
+    void skipCamerasInBlocks(RayBatch rays) {
+        for (int i = 0; i < rays.size; i++) {
+            if (rays.active[i] && isCameraInBlock(rays.x[i], rays.y[i], rays.z[i])) {
+                rays.skip(i);
+            }
+        }
+    }
+
+    // Same samples, in the same order, as CameraGeometry.isCameraInBlock
+    private boolean isCameraInBlock(double x, double y, double z) {
+        double halfWidth = CameraGeometry.CAMERA_HALF_WIDTH;
+        double headY = y + 1.6;
+        return isSolidAt(x, y, z) ||
+            isSolidAt(x, y + 1.0, z) ||
+            isSolidAt(x, y + CameraGeometry.CAMERA_HEIGHT, z) ||
+            isSolidAt(x + halfWidth, y, z) ||
+            isSolidAt(x - halfWidth, y, z) ||
+            isSolidAt(x, y, z + halfWidth) ||
+            isSolidAt(x, y, z - halfWidth) ||
+            isSolidAt(x + halfWidth, headY, z) ||
+            isSolidAt(x - halfWidth, headY, z) ||
+            isSolidAt(x, headY, z + halfWidth) ||
+            isSolidAt(x, headY, z - halfWidth);
+    }
+
+    private boolean isSolidAt(double x, double y, double z) {
+        long localX = CameraGeometry.floor(x) - originX;
+        long localY = CameraGeometry.floor(y) - originY;
+        long localZ = CameraGeometry.floor(z) - originZ;
+        return isSolid((localX * sizeY + localY) * sizeZ + localZ);
+    }
+
+    // index = (localX * sizeY + localY) * sizeZ + localZ
+    boolean isSolid(long index) {
+        int i = (int) index;
+        if (stamps[i] == generation) {
+            return solid[i];
+        }
+        int localZ = i % sizeZ;
+        int rest = i / sizeZ;
+        int localY = rest % sizeY;
+        int localX = rest / sizeY;
+        boolean value = CameraGeometry.isBlockSolid(world, originX + localX, originY + localY, originZ + localZ);
+        stamps[i] = generation;
+        solid[i] = value;
+        return value;
+    }
+}
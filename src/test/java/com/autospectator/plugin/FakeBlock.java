@@ -0,0 +1,62 @@
+package com.autospectator.plugin;
+
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+
+// A block of a FakeWorld; the world hands out two shared ones for lookups
+abstract class FakeBlock implements Block {
+
+    private final World world;
+    private final Material type;
+    private final int x, y, z;
+
+    FakeBlock(World world, Material type, int x, int y, int z) {
+        this.world = world;
+        this.type = type;
+        this.x = x;
+        this.y = y;
+        this.z = z;
+    }
+
+    @Override
+    public Material getType() {
+        return type;
+    }
+
+    @Override
+    public boolean isPassable() {
+        return !type.isSolid();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return type == Material.AIR;
+    }
+
+    @Override
+    public World getWorld() {
+        return world;
+    }
+
+    @Override
+    public int getX() {
+        return x;
+    }
+
+    @Override
+    public int getY() {
+        return y;
+    }
+
+    @Override
+    public int getZ() {
+        return z;
+    }
+
+    @Override
+    public Location getLocation() {
+        return new Location(world, x, y, z);
+    }
+}
@@ -0,0 +1,150 @@
+package com.autospectator.plugin;
+
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.attribute.Attribute;
+import org.bukkit.attribute.AttributeInstance;
+import org.bukkit.entity.LivingEntity;
+
+import java.util.UUID;
+
+// Position, health and life cycle shared by FakePlayer and FakeMob
+abstract class FakeEntity implements LivingEntity {
+
+    static final double MAX_HEALTH = 20.0;
+
+    private final UUID uniqueId;
+    protected World world;
+    protected double x, y, z;
+    protected float yaw, pitch;
+    private double health = MAX_HEALTH;
+    private boolean dead = false;
+    private boolean removed = false;
+    private final AttributeInstance maxHealth = Fakes.create(MaxHealth.class);
+
+    FakeEntity(UUID uniqueId, World world, double x, double y, double z) {
+        this.uniqueId = uniqueId;
+        this.world = world;
+        this.x = x;
+        this.y = y;
+        this.z = z;
+    }
+
+    abstract static class MaxHealth implements AttributeInstance {
+
+        @Override
+        public Attribute getAttribute() {
+            return Attribute.MAX_HEALTH;
+        }
+
+        @Override
+        public double getBaseValue() {
+            return MAX_HEALTH;
+        }
+
+        @Override
+        public double getValue() {
+            return MAX_HEALTH;
+        }
+    }
+
+    // Moves without any of the events a teleport fires
+    void moveTo(double x, double y, double z) {
+        this.x = x;
+        this.y = y;
+        this.z = z;
+    }
+
+    double getX() {
+        return x;
+    }
+
+    double getY() {
+        return y;
+    }
+
+    double getZ() {
+        return z;
+    }
+
+    void setDead(boolean dead) {
+        this.dead = dead;
+        if (!dead) {
+            health = MAX_HEALTH;
+        }
+    }
+
+    void setRemoved(boolean removed) {
+        this.removed = removed;
+    }
+
+    boolean isRemoved() {
+        return removed;
+    }
+
+    @Override
+    public UUID getUniqueId() {
+        return uniqueId;
+    }
+
+    @Override
+    public World getWorld() {
+        return world;
+    }
+
+    @Override
+    public Location getLocation() {
+        return new Location(world, x, y, z, yaw, pitch);
+    }
+
+    @Override
+    public Location getLocation(Location location) {
+        if (location != null) {
+            location.setWorld(world);
+            location.setX(x);
+            location.setY(y);
+            location.setZ(z);
+            location.setYaw(yaw);
+            location.setPitch(pitch);
+        }
+        return location;
+    }
+
+    @Override
+    public double getHealth() {
+        return health;
+    }
+
+    @Override
+    public void setHealth(double health) {
+        if (health < 0 || health > MAX_HEALTH) {
+            throw new IllegalArgumentException("Health value (" + health + ") must be between 0 and " + MAX_HEALTH);
+        }
+        this.health = health;
+    }
+
+    @Override
+    public AttributeInstance getAttribute(Attribute attribute) {
+        return attribute == Attribute.MAX_HEALTH ? maxHealth : null;
+    }
+
+    @Override
+    public boolean isDead() {
+        return dead;
+    }
+
+    @Override
+    public boolean isValid() {
+        return !dead && !removed;
+    }
+
+    @Override
+    public String getCustomName() {
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSuperclass().getSimpleName() + "{" + getName() + "}";
+    }
+}
@@ -0,0 +1,60 @@
+package com.autospectator.plugin;
+
+import org.bukkit.World;
+import org.bukkit.entity.EntityType;
+import org.bukkit.entity.Monster;
+
+import java.util.UUID;
+
+// Hostile mob, optionally named and optionally of a boss type
+abstract class FakeMob extends FakeEntity implements Monster {
+
+    private final EntityType type;
+    private String customName;
+
+    FakeMob(EntityType type, UUID uniqueId, World world, double x, double y, double z) {
+        super(uniqueId, world, x, y, z);
+        this.type = type;
+    }
+
+    @Override
+    public EntityType getType() {
+        return type;
+    }
+
+    @Override
+    public String getName() {
+        return customName != null ? customName : type.name();
+    }
+
+    @Override
+    public String getCustomName() {
+        return customName;
+    }
+
+    @Override
+    public void setCustomName(String name) {
+        this.customName = name;
+    }
+
+    @Override
+    public double getEyeHeight() {
+        return type == EntityType.ENDER_DRAGON ? 6.0 : 1.74;
+    }
+
+    @Override
+    public double getHeight() {
+        return type == EntityType.ENDER_DRAGON ? 8.0 : 1.95;
+    }
+
+    @Override
+    public double getWidth() {
+        return type == EntityType.ENDER_DRAGON ? 16.0 : 0.6;
+    }
+
+    @Override
+    public void remove() {
+        setRemoved(true);
+        ((FakeWorld) world).removeEntity(this);
+    }
+}
@@ -0,0 +1,254 @@
+package com.autospectator.plugin;
+
+import net.md_5.bungee.api.ChatMessageType;
+import net.md_5.bungee.api.chat.BaseComponent;
+import org.bukkit.GameMode;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.EntityType;
+import org.bukkit.entity.Player;
+import org.bukkit.event.player.PlayerChangedWorldEvent;
+import org.bukkit.event.player.PlayerGameModeChangeEvent;
+import org.bukkit.inventory.EquipmentSlot;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.PlayerInventory;
+import org.bukkit.plugin.Plugin;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Player that fires the events the server fires for game mode changes and
+ * cross-world teleports, and counts what the plugin sends it: teleports,
+ * action bar packets and chat messages.
+ */
+abstract class FakePlayer extends FakeEntity implements Player {
+
+    private final String name;
+    private final Player.Spigot spigot = new CountingSpigot();
+    private final PlayerInventory inventory = Fakes.create(Inventory.class);
+    private final Set<UUID> hidden = new HashSet<>();
+    private final List<String> messages = new ArrayList<>();
+    private GameMode gameMode = GameMode.SURVIVAL;
+    private Entity spectatorTarget;
+    private float fallDistance = 0;
+    private boolean op = false;
+    private boolean online = false;
+
+    private long teleports = 0;
+    private long actionBars = 0;
+
+    FakePlayer(String name, UUID uniqueId, World world, double x, double y, double z) {
+        super(uniqueId, world, x, y, z);
+        this.name = name;
+    }
+
+    private final class CountingSpigot extends Player.Spigot {
+
+        @Override
+        public void sendMessage(ChatMessageType position, BaseComponent component) {
+            if (position == ChatMessageType.ACTION_BAR) {
+                actionBars++;
+            } else {
+                messages.add(component.toPlainText());
+            }
+        }
+
+        @Override
+        public void sendMessage(ChatMessageType position, BaseComponent... components) {
+            for (BaseComponent component : components) {
+                sendMessage(position, component);
+            }
+        }
+    }
+
+    abstract static class Inventory implements PlayerInventory {
+
+        private final Map<EquipmentSlot, ItemStack> items = new EnumMap<>(EquipmentSlot.class);
+
+        @Override
+        public ItemStack getItem(EquipmentSlot slot) {
+            return items.get(slot);
+        }
+
+        @Override
+        public void setItem(EquipmentSlot slot, ItemStack item) {
+            items.put(slot, item);
+        }
+
+        @Override
+        public ItemStack getItemInMainHand() {
+            return items.get(EquipmentSlot.HAND);
+        }
+
+        @Override
+        public void setItemInMainHand(ItemStack item) {
+            items.put(EquipmentSlot.HAND, item);
+        }
+    }
+
+    void setOnline(boolean online) {
+        this.online = online;
+        setRemoved(!online);
+    }
+
+    long getTeleports() {
+        return teleports;
+    }
+
+    long getActionBars() {
+        return actionBars;
+    }
+
+    List<String> getMessages() {
+        return messages;
+    }
+
+    boolean isHiddenFrom(Player other) {
+        return ((FakePlayer) other).hidden.contains(getUniqueId());
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String getDisplayName() {
+        return name;
+    }
+
+    @Override
+    public EntityType getType() {
+        return EntityType.PLAYER;
+    }
+
+    @Override
+    public double getEyeHeight() {
+        return 1.62;
+    }
+
+    @Override
+    public double getHeight() {
+        return 1.8;
+    }
+
+    @Override
+    public double getWidth() {
+        return 0.6;
+    }
+
+    @Override
+    public boolean isOnline() {
+        return online;
+    }
+
+    @Override
+    public GameMode getGameMode() {
+        return gameMode;
+    }
+
+    @Override
+    public void setGameMode(GameMode mode) {
+        if (mode == gameMode) return;
+        PlayerGameModeChangeEvent event = new PlayerGameModeChangeEvent(this, mode);
+        FakeServer.get().getPluginManager().callEvent(event);
+        if (event.isCancelled()) return;
+        if (mode != GameMode.SPECTATOR) {
+            spectatorTarget = null;
+        }
+        gameMode = mode;
+    }
+
+    @Override
+    public boolean teleport(Location location) {
+        teleports++;
+        World from = world;
+        world = location.getWorld();
+        x = location.getX();
+        y = location.getY();
+        z = location.getZ();
+        yaw = location.getYaw();
+        pitch = location.getPitch();
+        fallDistance = 0;
+        if (from != world) {
+            FakeServer.get().getPluginManager().callEvent(new PlayerChangedWorldEvent(this, from));
+        }
+        return true;
+    }
+
+    @Override
+    public float getFallDistance() {
+        return fallDistance;
+    }
+
+    @Override
+    public void setFallDistance(float distance) {
+        this.fallDistance = distance;
+    }
+
+    @Override
+    public Entity getSpectatorTarget() {
+        return spectatorTarget;
+    }
+
+    @Override
+    public void setSpectatorTarget(Entity entity) {
+        if (gameMode != GameMode.SPECTATOR) {
+            throw new IllegalArgumentException("Player must be in spectator mode");
+        }
+        spectatorTarget = entity;
+    }
+
+    @Override
+    public void hidePlayer(Plugin plugin, Player player) {
+        hidden.add(player.getUniqueId());
+    }
+
+    @Override
+    public void showPlayer(Plugin plugin, Player player) {
+        hidden.remove(player.getUniqueId());
+    }
+
+    @Override
+    public boolean canSee(Player player) {
+        return !hidden.contains(player.getUniqueId());
+    }
+
+    @Override
+    public Player.Spigot spigot() {
+        return spigot;
+    }
+
+    @Override
+    public PlayerInventory getInventory() {
+        return inventory;
+    }
+
+    @Override
+    public void sendMessage(String message) {
+        messages.add(message);
+    }
+
+    @Override
+    public boolean isOp() {
+        return op;
+    }
+
+    @Override
+    public void setOp(boolean op) {
+        this.op = op;
+    }
+
+    // autospectator.use and autospectator.admin both default to op
+    @Override
+    public boolean hasPermission(String permission) {
+        return op;
+    }
+}
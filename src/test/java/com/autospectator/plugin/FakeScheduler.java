@@ -0,0 +1,205 @@
+package com.autospectator.plugin;
+
+import org.bukkit.plugin.IllegalPluginAccessException;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitScheduler;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Main-thread scheduler driven by {@link #tick()}. Like the server's, it
+ * refuses tasks from disabled plugins and runs a task scheduled with a delay
+ * of 0 or 1 on the next tick. Tasks may be scheduled from any thread; they
+ * always run on the thread calling {@code tick}. Exceptions thrown by a task
+ * are not caught, so they fail the test.
+ */
+abstract class FakeScheduler implements BukkitScheduler {
+
+    private final List<Task> tasks = new ArrayList<>();
+    // Reused every tick so the scheduler doesn't allocate in the measured loop
+    private final List<Task> due = new ArrayList<>();
+    private final Thread primaryThread;
+    private long currentTick = 0;
+    private int nextId = 1;
+    private int foreignTasks = 0;
+
+    FakeScheduler(Thread primaryThread) {
+        this.primaryThread = primaryThread;
+    }
+
+    final class Task implements BukkitTask {
+        private final int id;
+        private final Plugin owner;
+        private final Runnable runnable;
+        private final long period;
+        private long nextRun;
+        private boolean cancelled;
+
+        private Task(int id, Plugin owner, Runnable runnable, long nextRun, long period) {
+            this.id = id;
+            this.owner = owner;
+            this.runnable = runnable;
+            this.nextRun = nextRun;
+            this.period = period;
+        }
+
+        @Override
+        public int getTaskId() {
+            return id;
+        }
+
+        @Override
+        public Plugin getOwner() {
+            return owner;
+        }
+
+        @Override
+        public boolean isSync() {
+            return true;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            synchronized (FakeScheduler.this) {
+                return cancelled;
+            }
+        }
+
+        @Override
+        public void cancel() {
+            synchronized (FakeScheduler.this) {
+                cancelled = true;
+                tasks.remove(this);
+            }
+        }
+    }
+
+    /**
+     * Advances one tick and runs the tasks that are due, in the order they
+     * were scheduled. Tasks scheduled while it runs wait for the next tick.
+     */
+    public void tick() {
+        synchronized (this) {
+            currentTick++;
+            for (int i = 0; i < tasks.size(); i++) {
+                Task task = tasks.get(i);
+                if (task.nextRun <= currentTick) {
+                    due.add(task);
+                }
+            }
+        }
+        try {
+            for (int i = 0; i < due.size(); i++) {
+                Task task = due.get(i);
+                if (task.isCancelled()) continue; // Cancelled by a task that ran before it
+                task.runnable.run();
+                synchronized (this) {
+                    if (task.period > 0 && !task.cancelled) {
+                        task.nextRun = currentTick + task.period;
+                    } else {
+                        tasks.remove(task);
+                    }
+                }
+            }
+        } finally {
+            due.clear();
+        }
+    }
+
+    public void tick(int ticks) {
+        for (int i = 0; i < ticks; i++) {
+            tick();
+        }
+    }
+
+    public synchronized long getCurrentTick() {
+        return currentTick;
+    }
+
+    /**
+     * Waits until at least {@code count} tasks have been scheduled from other
+     * threads in total, e.g. by an I/O thread handing its results back.
+     */
+    public synchronized void awaitForeignTasks(int count, long timeoutMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (foreignTasks < count) {
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                throw new IllegalStateException("Timed out waiting for a task from another thread");
+            }
+            wait(remaining);
+        }
+    }
+
+    private synchronized Task schedule(Plugin plugin, Runnable runnable, long delay, long period) {
+        if (!plugin.isEnabled()) {
+            throw new IllegalPluginAccessException("Plugin attempted to register task while disabled");
+        }
+        Task task = new Task(nextId++, plugin, runnable, currentTick + Math.max(1L, delay), period);
+        tasks.add(task);
+        if (Thread.currentThread() != primaryThread) {
+            foreignTasks++;
+            notifyAll();
+        }
+        return task;
+    }
+
+    @Override
+    public BukkitTask runTask(Plugin plugin, Runnable task) {
+        return schedule(plugin, task, 0L, -1L);
+    }
+
+    @Override
+    public BukkitTask runTaskLater(Plugin plugin, Runnable task, long delay) {
+        return schedule(plugin, task, delay, -1L);
+    }
+
+    @Override
+    public BukkitTask runTaskTimer(Plugin plugin, Runnable task, long delay, long period) {
+        return schedule(plugin, task, delay, period);
+    }
+
+    @Override
+    public synchronized void cancelTask(int taskId) {
+        for (int i = 0; i < tasks.size(); i++) {
+            if (tasks.get(i).id == taskId) {
+                tasks.remove(i).cancelled = true;
+                return;
+            }
+        }
+    }
+
+    @Override
+    public synchronized void cancelTasks(Plugin plugin) {
+        for (int i = tasks.size() - 1; i >= 0; i--) {
+            if (tasks.get(i).owner == plugin) {
+                tasks.remove(i).cancelled = true;
+            }
+        }
+    }
+
+    @Override
+    public synchronized boolean isQueued(int taskId) {
+        for (Task task : tasks) {
+            if (task.id == taskId) return true;
+        }
+        return false;
+    }
+
+    @Override
+    public synchronized List<BukkitTask> getPendingTasks() {
+        return new ArrayList<>(tasks);
+    }
+
+    // Forgets everything between tests, including the tick count
+    synchronized void reset() {
+        for (Task task : tasks) {
+            task.cancelled = true;
+        }
+        tasks.clear();
+        currentTick = 0;
+        foreignTasks = 0;
+    }
+}
@@ -0,0 +1,482 @@
+package com.autospectator.plugin;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Keyed;
+import org.bukkit.Registry;
+import org.bukkit.Server;
+import org.bukkit.World;
+import org.bukkit.command.CommandException;
+import org.bukkit.command.CommandSender;
+import org.bukkit.command.PluginCommand;
+import org.bukkit.damage.DamageSource;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.EntityType;
+import org.bukkit.entity.Player;
+import org.bukkit.event.Cancellable;
+import org.bukkit.event.Event;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.entity.EntityRemoveEvent;
+import org.bukkit.event.entity.EntitySpawnEvent;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerKickEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.plugin.InvalidDescriptionException;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.plugin.PluginDescriptionFile;
+import org.bukkit.plugin.PluginManager;
+import org.bukkit.plugin.ServicePriority;
+import org.bukkit.plugin.ServicesManager;
+import org.bukkit.plugin.java.JavaPlugin;
+import org.bukkit.plugin.java.JavaPluginLoader;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.*;
+import java.util.logging.Logger;
+
+import static org.mockito.Mockito.RETURNS_DEFAULTS;
+import static org.mockito.Mockito.mock;
+
+/**
+ * In-process server the tests run the real plugin on: it loads {@code Main}
+ * from plugin.yml, enables it with a scheduler driven by the test, dispatches
+ * events to the registered listener and commands to the registered executor,
+ * and keeps the online players, worlds and mobs. {@link Bukkit} only accepts
+ * one server per JVM, so every test shares this one and {@link #start()}
+ * clears it.
+ */
+abstract class FakeServer implements Server {
+
+    private static FakeServer instance;
+
+    private final Logger logger = Logger.getLogger("FakeServer");
+    private final Thread primaryThread = Thread.currentThread();
+    private final FakeScheduler scheduler = Fakes.create(FakeScheduler.class, primaryThread);
+    private final Plugins plugins = Fakes.create(Plugins.class);
+    private final Services services = Fakes.create(Services.class);
+    private final Console console = Fakes.create(Console.class);
+
+    private final Map<UUID, FakePlayer> players = new LinkedHashMap<>();
+    // One view for the whole run, so iterating the online players only allocates the iterator
+    private final Collection<FakePlayer> onlinePlayers = Collections.unmodifiableCollection(players.values());
+    private final List<World> worlds = new ArrayList<>();
+    private final Map<UUID, FakeMob> mobs = new HashMap<>();
+    private final Map<String, PluginCommand> commands = new HashMap<>();
+    private final Map<Class<?>, Registry<?>> registries = new HashMap<>();
+    private DamageSource damageSource;
+
+    static synchronized FakeServer get() {
+        if (instance == null) {
+            instance = Fakes.create(FakeServer.class);
+            Bukkit.setServer(instance);
+        }
+        return instance;
+    }
+
+    // The shared server with no players, worlds, plugins or tasks
+    static FakeServer start() {
+        FakeServer server = get();
+        server.players.clear();
+        server.worlds.clear();
+        server.mobs.clear();
+        server.commands.clear();
+        server.plugins.handlers.clear();
+        server.services.providers.clear();
+        server.services.owners.clear();
+        server.scheduler.reset();
+        server.console.messages.clear();
+        return server;
+    }
+
+    abstract static class Plugins implements PluginManager {
+
+        private record Handler(Plugin plugin, Listener listener, Class<?> eventType, EventPriority priority,
+                               boolean ignoreCancelled, MethodHandle method) {
+        }
+
+        private final List<Handler> handlers = new ArrayList<>();
+
+        // Handlers are called through method handles, so dispatching doesn't allocate
+        @Override
+        public void registerEvents(Listener listener, Plugin plugin) {
+            for (Method method : listener.getClass().getDeclaredMethods()) {
+                EventHandler annotation = method.getAnnotation(EventHandler.class);
+                if (annotation == null || method.isBridge() || method.isSynthetic()) continue;
+                Class<?>[] parameters = method.getParameterTypes();
+                if (parameters.length != 1 || !Event.class.isAssignableFrom(parameters[0])) continue;
+                try {
+                    MethodHandle handle = MethodHandles.publicLookup().unreflect(method)
+                        .asType(MethodType.methodType(void.class, Listener.class, Event.class));
+                    handlers.add(new Handler(plugin, listener, parameters[0], annotation.priority(),
+                        annotation.ignoreCancelled(), handle));
+                } catch (IllegalAccessException e) {
+                    throw new IllegalArgumentException("Event handler " + method + " is not public", e);
+                }
+            }
+            // Stable, so handlers of the same priority keep their registration order
+            handlers.sort(Comparator.comparing(Handler::priority));
+        }
+
+        // Unlike the server, a handler that throws fails the test instead of being logged
+        @Override
+        public void callEvent(Event event) {
+            for (int i = 0; i < handlers.size(); i++) {
+                Handler handler = handlers.get(i);
+                if (!handler.eventType.isInstance(event)) continue;
+                if (handler.ignoreCancelled && event instanceof Cancellable cancellable && cancellable.isCancelled()) continue;
+                try {
+                    handler.method.invokeExact(handler.listener, event);
+                } catch (RuntimeException | Error e) {
+                    throw e;
+                } catch (Throwable t) {
+                    throw new IllegalStateException(t);
+                }
+            }
+        }
+
+        void unregisterAll(Plugin plugin) {
+            handlers.removeIf(handler -> handler.plugin == plugin);
+        }
+    }
+
+    abstract static class Services implements ServicesManager {
+
+        private final Map<Class<?>, Object> providers = new HashMap<>();
+        private final Map<Class<?>, Plugin> owners = new HashMap<>();
+
+        @Override
+        public <T> void register(Class<T> service, T provider, Plugin plugin, ServicePriority priority) {
+            providers.put(service, provider);
+            owners.put(service, plugin);
+        }
+
+        @Override
+        public void unregisterAll(Plugin plugin) {
+            owners.entrySet().removeIf(entry -> {
+                if (entry.getValue() != plugin) return false;
+                providers.remove(entry.getKey());
+                return true;
+            });
+        }
+
+        @Override
+        public <T> T load(Class<T> service) {
+            return service.cast(providers.get(service));
+        }
+    }
+
+    // Console sender: may do everything, keeps what it is told
+    abstract static class Console implements CommandSender {
+
+        private final List<String> messages = new ArrayList<>();
+
+        List<String> getMessages() {
+            return messages;
+        }
+
+        @Override
+        public void sendMessage(String message) {
+            messages.add(message);
+        }
+
+        @Override
+        public String getName() {
+            return "CONSOLE";
+        }
+
+        @Override
+        public boolean isOp() {
+            return true;
+        }
+
+        @Override
+        public boolean hasPermission(String permission) {
+            return true;
+        }
+    }
+
+    // -- Plugin life cycle
+
+    /**
+     * Creates the plugin from plugin.yml like the server's plugin loader does,
+     * with its data folder in {@code dataFolder}, and registers its commands.
+     * Config values set on {@code getConfig()} before {@link #enable} override
+     * config.yml.
+     */
+    @SuppressWarnings("deprecation") // Loaders are only made by the server otherwise
+    Main load(File dataFolder) {
+        PluginDescriptionFile description;
+        try (InputStream in = FakeServer.class.getClassLoader().getResourceAsStream("plugin.yml")) {
+            description = new PluginDescriptionFile(Objects.requireNonNull(in, "plugin.yml not on the class path"));
+        } catch (IOException | InvalidDescriptionException e) {
+            throw new IllegalStateException("Cannot read plugin.yml", e);
+        }
+        Main plugin = new Main(new JavaPluginLoader(this), description, dataFolder, new File(dataFolder, "AutoSpectator.jar"));
+
+        for (Map.Entry<String, Map<String, Object>> entry : description.getCommands().entrySet()) {
+            PluginCommand command = newCommand(entry.getKey(), plugin);
+            command.setPermission((String) entry.getValue().get("permission"));
+            command.setUsage((String) entry.getValue().get("usage"));
+            commands.put(entry.getKey(), command);
+        }
+        return plugin;
+    }
+
+    void enable(Main plugin) {
+        setEnabled(plugin, true);
+    }
+
+    // Like the server: onDisable, then the plugin's tasks, listeners and services are dropped
+    void disable(Main plugin) {
+        setEnabled(plugin, false);
+        scheduler.cancelTasks(plugin);
+        plugins.unregisterAll(plugin);
+        services.unregisterAll(plugin);
+    }
+
+    private static void setEnabled(JavaPlugin plugin, boolean enabled) {
+        try {
+            Method method = JavaPlugin.class.getDeclaredMethod("setEnabled", boolean.class);
+            method.setAccessible(true);
+            method.invoke(plugin, enabled);
+        } catch (InvocationTargetException e) {
+            if (e.getCause() instanceof RuntimeException runtime) throw runtime;
+            throw new IllegalStateException(e.getCause());
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static PluginCommand newCommand(String name, Plugin plugin) {
+        try {
+            Constructor<PluginCommand> constructor = PluginCommand.class.getDeclaredConstructor(String.class, Plugin.class);
+            constructor.setAccessible(true);
+            return constructor.newInstance(name, plugin);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    Console console() {
+        return console;
+    }
+
+    // -- Worlds, players and mobs
+
+    FakeWorld createWorld(String name, long seed) {
+        FakeWorld world = Fakes.create(FakeWorld.class, name, seed);
+        worlds.add(world);
+        return world;
+    }
+
+    // Creates the player and fires PlayerJoinEvent once it is online
+    FakePlayer join(String name, UUID id, World world, double x, double y, double z) {
+        FakePlayer player = Fakes.create(FakePlayer.class, name, id, world, x, y, z);
+        join(player);
+        return player;
+    }
+
+    void join(FakePlayer player) {
+        players.put(player.getUniqueId(), player);
+        player.setOnline(true);
+        plugins.callEvent(new PlayerJoinEvent(player, player.getName() + " joined the game"));
+    }
+
+    // PlayerQuitEvent fires while the player is still online, as on the server
+    void quit(FakePlayer player) {
+        plugins.callEvent(new PlayerQuitEvent(player, player.getName() + " left the game"));
+        players.remove(player.getUniqueId());
+        player.setOnline(false);
+    }
+
+    void kick(FakePlayer player) {
+        PlayerKickEvent event = new PlayerKickEvent(player, "Kicked", player.getName() + " left the game");
+        plugins.callEvent(event);
+        if (!event.isCancelled()) {
+            quit(player);
+        }
+    }
+
+    FakeMob spawn(EntityType type, String customName, UUID id, FakeWorld world, double x, double y, double z) {
+        FakeMob mob = Fakes.create(FakeMob.class, type, id, world, x, y, z);
+        mob.setCustomName(customName);
+        mobs.put(mob.getUniqueId(), mob);
+        world.addEntity(mob);
+        plugins.callEvent(new EntitySpawnEvent(mob));
+        return mob;
+    }
+
+    void despawn(FakeMob mob, EntityRemoveEvent.Cause cause) {
+        plugins.callEvent(new EntityRemoveEvent(mob, cause));
+        mob.remove();
+        mobs.remove(mob.getUniqueId());
+    }
+
+    // Damage events need one; nothing the plugin reads comes from it
+    DamageSource damageSource() {
+        if (damageSource == null) {
+            damageSource = mock(DamageSource.class);
+        }
+        return damageSource;
+    }
+
+    // -- Server
+
+    @Override
+    public Logger getLogger() {
+        return logger;
+    }
+
+    @Override
+    public String getName() {
+        return "FakeServer";
+    }
+
+    @Override
+    public String getVersion() {
+        return "test";
+    }
+
+    @Override
+    public String getBukkitVersion() {
+        return "1.21.10-R0.1-SNAPSHOT";
+    }
+
+    @Override
+    public FakeScheduler getScheduler() {
+        return scheduler;
+    }
+
+    @Override
+    public Plugins getPluginManager() {
+        return plugins;
+    }
+
+    @Override
+    public ServicesManager getServicesManager() {
+        return services;
+    }
+
+    @Override
+    public boolean isPrimaryThread() {
+        return Thread.currentThread() == primaryThread;
+    }
+
+    @Override
+    public Collection<FakePlayer> getOnlinePlayers() {
+        return onlinePlayers;
+    }
+
+    @Override
+    public Player getPlayer(UUID id) {
+        return players.get(id);
+    }
+
+    @Override
+    public Player getPlayerExact(String name) {
+        for (FakePlayer player : players.values()) {
+            if (player.getName().equalsIgnoreCase(name)) return player;
+        }
+        return null;
+    }
+
+    // Exact name first, otherwise the shortest name starting with it, as on the server
+    @Override
+    public Player getPlayer(String name) {
+        Player found = getPlayerExact(name);
+        if (found != null) return found;
+        String prefix = name.toLowerCase(Locale.ROOT);
+        int delta = Integer.MAX_VALUE;
+        for (FakePlayer player : players.values()) {
+            if (player.getName().toLowerCase(Locale.ROOT).startsWith(prefix)) {
+                int curDelta = player.getName().length() - prefix.length();
+                if (curDelta < delta) {
+                    found = player;
+                    delta = curDelta;
+                }
+            }
+        }
+        return found;
+    }
+
+    @Override
+    public Entity getEntity(UUID id) {
+        Player player = players.get(id);
+        return player != null ? player : mobs.get(id);
+    }
+
+    @Override
+    public List<World> getWorlds() {
+        return new ArrayList<>(worlds);
+    }
+
+    @Override
+    public World getWorld(UUID id) {
+        for (World world : worlds) {
+            if (world.getUID().equals(id)) return world;
+        }
+        return null;
+    }
+
+    @Override
+    public World getWorld(String name) {
+        for (World world : worlds) {
+            if (world.getName().equals(name)) return world;
+        }
+        return null;
+    }
+
+    @Override
+    public PluginCommand getPluginCommand(String name) {
+        return commands.get(name);
+    }
+
+    @Override
+    public boolean dispatchCommand(CommandSender sender, String commandLine) throws CommandException {
+        String[] parts = commandLine.split(" ");
+        PluginCommand command = commands.get(parts[0].toLowerCase(Locale.ROOT));
+        if (command == null) return false;
+        command.execute(sender, parts[0], Arrays.copyOfRange(parts, 1, parts.length));
+        return true;
+    }
+
+    /**
+     * Registry initialisation asks the server for every registry. Each one is
+     * a mock whose entries are mocks of the element type, which is all
+     * constants such as {@code Attribute.MAX_HEALTH} need to resolve.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T extends Keyed> Registry<T> getRegistry(Class<T> type) {
+        // Not computeIfAbsent: creating the first one initialises Registry, which asks for the others
+        Registry<?> registry = registries.get(type);
+        if (registry == null) {
+            registry = mockRegistry(type);
+            registries.put(type, registry);
+        }
+        return (Registry<T>) registry;
+    }
+
+    private static Registry<?> mockRegistry(Class<?> type) {
+        Map<Object, Object> entries = new HashMap<>();
+        return mock(Registry.class, invocation -> {
+            Method method = invocation.getMethod();
+            if (method.isDefault()) {
+                return invocation.callRealMethod();
+            }
+            if (method.getName().equals("get") && type.isInterface()) {
+                return entries.computeIfAbsent(invocation.getArgument(0), key -> mock(type));
+            }
+            return RETURNS_DEFAULTS.answer(invocation);
+        });
+    }
+}
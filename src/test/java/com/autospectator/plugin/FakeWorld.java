@@ -0,0 +1,126 @@
+package com.autospectator.plugin;
+
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.LivingEntity;
+import org.bukkit.entity.Player;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * World with seeded terrain: solid ground below {@link #GROUND_Y} and stone
+ * pillars of varying height on a few percent of the columns, so camera rays
+ * get blocked now and then. Block lookups return one of two shared blocks and
+ * never allocate; {@link #blockAt} makes a positioned block for block events.
+ */
+abstract class FakeWorld implements World {
+
+    static final int GROUND_Y = 64;
+    private static final int MAX_PILLAR_HEIGHT = 12;
+
+    private final String name;
+    private final UUID uid;
+    private final long seed;
+    private final Block stone;
+    private final Block air;
+    // Non-player entities; players are found through the server
+    private final List<LivingEntity> entities = new ArrayList<>();
+
+    FakeWorld(String name, long seed) {
+        this.name = name;
+        this.uid = new UUID(seed, name.hashCode());
+        this.seed = seed;
+        this.stone = Fakes.create(FakeBlock.class, this, Material.STONE, 0, 0, 0);
+        this.air = Fakes.create(FakeBlock.class, this, Material.AIR, 0, 0, 0);
+    }
+
+    boolean isSolid(int x, int y, int z) {
+        if (y < GROUND_Y) return true;
+        return y < GROUND_Y + pillarHeight(x, z);
+    }
+
+    // Height of the pillar on this column, mostly 0
+    int pillarHeight(int x, int z) {
+        long h = seed ^ (x * 0x9E3779B97F4A7C15L) ^ (z * 0xC2B2AE3D27D4EB4FL);
+        h ^= h >>> 31;
+        h *= 0xBF58476D1CE4E5B9L;
+        h ^= h >>> 29;
+        return (h & 31) == 0 ? 2 + (int) ((h >>> 8) % (MAX_PILLAR_HEIGHT - 1)) : 0;
+    }
+
+    Block blockAt(int x, int y, int z) {
+        return Fakes.create(FakeBlock.class, this, isSolid(x, y, z) ? Material.STONE : Material.AIR, x, y, z);
+    }
+
+    void addEntity(LivingEntity entity) {
+        entities.add(entity);
+    }
+
+    void removeEntity(Entity entity) {
+        entities.remove(entity);
+    }
+
+    @Override
+    public Block getBlockAt(int x, int y, int z) {
+        return isSolid(x, y, z) ? stone : air;
+    }
+
+    @Override
+    public Block getBlockAt(Location location) {
+        return getBlockAt(location.getBlockX(), location.getBlockY(), location.getBlockZ());
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public UUID getUID() {
+        return uid;
+    }
+
+    @Override
+    public int getMinHeight() {
+        return -64;
+    }
+
+    @Override
+    public int getMaxHeight() {
+        return 320;
+    }
+
+    @Override
+    public List<Player> getPlayers() {
+        List<Player> players = new ArrayList<>();
+        for (Player player : FakeServer.get().getOnlinePlayers()) {
+            if (player.getWorld() == this) {
+                players.add(player);
+            }
+        }
+        return players;
+    }
+
+    // Copies, like the server does
+    @Override
+    public List<LivingEntity> getLivingEntities() {
+        List<LivingEntity> living = new ArrayList<>(entities);
+        living.addAll(getPlayers());
+        return living;
+    }
+
+    @Override
+    public List<Entity> getEntities() {
+        return new ArrayList<>(getLivingEntities());
+    }
+
+    @Override
+    public String toString() {
+        return "FakeWorld{" + name + "}";
+    }
+}
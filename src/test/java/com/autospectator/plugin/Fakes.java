@@ -0,0 +1,86 @@
+package com.autospectator.plugin;
+
+import net.bytebuddy.ByteBuddy;
+import net.bytebuddy.dynamic.loading.ClassLoadingStrategy;
+import net.bytebuddy.implementation.ExceptionMethod;
+import net.bytebuddy.matcher.ElementMatchers;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Completes the abstract fakes of this package. The Bukkit interfaces have
+ * hundreds of methods; a fake implements the ones the plugin uses and every
+ * other one throws, so a test fails loudly when the plugin starts calling
+ * something new. Implemented methods run as plain code, without the
+ * interception a mock adds, so they don't distort the soak measurements.
+ */
+final class Fakes {
+
+    private static final Map<Class<?>, Class<?>> COMPLETED = new ConcurrentHashMap<>();
+
+    private Fakes() {
+    }
+
+    static <T> T create(Class<T> type, Object... args) {
+        Class<?> completed = COMPLETED.computeIfAbsent(type, Fakes::complete);
+        for (Constructor<?> constructor : completed.getDeclaredConstructors()) {
+            if (accepts(constructor.getParameterTypes(), args)) {
+                try {
+                    return type.cast(constructor.newInstance(args));
+                } catch (InvocationTargetException e) {
+                    if (e.getCause() instanceof RuntimeException runtime) throw runtime;
+                    throw new IllegalStateException("Cannot create " + type.getSimpleName(), e.getCause());
+                } catch (ReflectiveOperationException e) {
+                    throw new IllegalStateException("Cannot create " + type.getSimpleName(), e);
+                }
+            }
+        }
+        throw new IllegalArgumentException("No constructor of " + type.getSimpleName() + " takes " + Arrays.toString(args));
+    }
+
+    private static Class<?> complete(Class<?> type) {
+        try {
+            // Defined next to the fake, so its package-private constructors are visible
+            MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(type, MethodHandles.lookup());
+            return new ByteBuddy()
+                .subclass(type)
+                .method(ElementMatchers.isAbstract())
+                .intercept(ExceptionMethod.throwing(UnsupportedOperationException.class,
+                    "Not implemented by " + type.getSimpleName()))
+                .make()
+                .load(type.getClassLoader(), ClassLoadingStrategy.UsingLookup.of(lookup))
+                .getLoaded();
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Cannot complete " + type.getSimpleName(), e);
+        }
+    }
+
+    private static boolean accepts(Class<?>[] parameters, Object[] args) {
+        if (parameters.length != args.length) return false;
+        for (int i = 0; i < parameters.length; i++) {
+            if (args[i] == null) {
+                if (parameters[i].isPrimitive()) return false;
+            } else if (!box(parameters[i]).isInstance(args[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Class<?> box(Class<?> type) {
+        if (!type.isPrimitive()) return type;
+        if (type == int.class) return Integer.class;
+        if (type == long.class) return Long.class;
+        if (type == double.class) return Double.class;
+        if (type == float.class) return Float.class;
+        if (type == boolean.class) return Boolean.class;
+        if (type == short.class) return Short.class;
+        if (type == byte.class) return Byte.class;
+        return Character.class;
+    }
+}
@@ -0,0 +1,304 @@
+package com.autospectator.plugin;
+
+import org.bukkit.GameMode;
+import org.bukkit.entity.EntityType;
+import org.bukkit.event.entity.EntityRemoveEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.lang.ref.WeakReference;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Players, mobs and cameras coming and going for thousands of ticks must not
+ * leave anything behind: sessions, tracked entities and timers follow what is
+ * online, players that left can be collected, and the block lookups per tick
+ * stay where they started. Each round replaces some players, retargets and
+ * reconnects cameras, starts and stops a short-lived camera, sends players
+ * across worlds and replaces the named mobs.
+ */
+class LifecycleChurnTest {
+
+    private static final int PLAYERS = 60;
+    private static final int MOBS = 6;
+    private static final int ROUNDS = 40;
+    private static final int ROUND_TICKS = 100;
+    private static final int REPLACED_PER_ROUND = 10;
+    private static final double AREA = 80;
+    private static final Pattern LIFECYCLE = Pattern.compile("Sessions (\\d+) tracked entities (\\d+) pending timers (\\d+)");
+
+    @TempDir
+    Path dataFolder;
+
+    private final Random random = new Random(36);
+    private final List<FakePlayer> players = new ArrayList<>();
+    private final List<FakeMob> mobs = new ArrayList<>();
+    private final List<WeakReference<FakePlayer>> departed = new ArrayList<>();
+    private FakeServer server;
+    private Main plugin;
+    private FakeWorld overworld;
+    private FakeWorld nether;
+    private FakePlayer follower;
+    private FakePlayer director;
+    private int nextId = 0;
+
+    @BeforeEach
+    void startServer() throws InterruptedException {
+        server = FakeServer.start();
+        overworld = server.createWorld("world", 36L);
+        nether = server.createWorld("world_nether", 37L);
+        plugin = server.load(dataFolder.toFile());
+        plugin.getConfig().set("metrics.random-seed", 36L);
+        server.enable(plugin);
+        server.getScheduler().awaitForeignTasks(1, 5000);
+        server.getScheduler().tick();
+
+        for (int i = 0; i < PLAYERS; i++) {
+            players.add(joinNewPlayer());
+        }
+        for (int i = 0; i < MOBS; i++) {
+            spawnMob();
+        }
+        // One camera picks its own targets, the other is told who to watch
+        follower = startCamera("Follower", new UUID(36, -1));
+        director = startCamera("Director", new UUID(36, -2));
+        server.dispatchCommand(director, "autospectate perspective cinematic");
+    }
+
+    @AfterEach
+    void stopServer() {
+        if (plugin.isEnabled()) {
+            server.disable(plugin);
+        }
+    }
+
+    @Test
+    void churnKeepsStateAndWorkFlat() throws InterruptedException {
+        long[] lookupsPerRound = new long[ROUNDS];
+        long maxTimers = 0;
+        long maxTimersFirstHalf = 0;
+        // The camera loop's repeating tasks, plus a session save that may be waiting
+        int tasks = server.getScheduler().getPendingTasks().size();
+
+        for (int round = 0; round < ROUNDS; round++) {
+            long before = CameraGeometry.getBlockLookups();
+            churn(round);
+            lookupsPerRound[round] = CameraGeometry.getBlockLookups() - before;
+
+            long[] lifecycle = lifecycle();
+            int cameras = follower.isOnline() ? 2 : 1;
+            assertEquals(cameras, lifecycle[0], "sessions after round " + round);
+            assertTrue(lifecycle[1] <= MOBS, lifecycle[1] + " entities tracked with " + MOBS + " mobs alive");
+            // A handful of timers per session; anything left by a stopped or departed session would pile up
+            assertTrue(lifecycle[2] <= 4L * cameras, lifecycle[2] + " timers for " + cameras + " sessions");
+            int pending = server.getScheduler().getPendingTasks().size();
+            assertTrue(pending <= tasks, pending + " scheduled tasks after round " + round + ", " + tasks + " at the start");
+            maxTimers = Math.max(maxTimers, lifecycle[2]);
+            if (round < ROUNDS / 2) {
+                maxTimersFirstHalf = maxTimers;
+            }
+        }
+
+        assertTrue(maxTimers <= maxTimersFirstHalf, "timers grew from " + maxTimersFirstHalf + " to " + maxTimers);
+        // Same population all along, so the work per tick must not creep up; the first rounds warm the caches
+        double early = average(lookupsPerRound, 2, 12) / ROUND_TICKS;
+        double late = average(lookupsPerRound, ROUNDS - 10, ROUNDS) / ROUND_TICKS;
+        assertTrue(late <= early * 1.5 + 10, "block lookups per tick went from " + early + " to " + late);
+    }
+
+    @Test
+    void departedPlayersCanBeCollected() throws InterruptedException {
+        for (int round = 0; round < 10; round++) {
+            churn(round);
+        }
+        assertFalse(departed.isEmpty());
+
+        for (int attempt = 0; attempt < 20 && !allCollected(); attempt++) {
+            System.gc();
+            Thread.sleep(50);
+        }
+        for (WeakReference<FakePlayer> reference : departed) {
+            assertNull(reference.get(), () -> reference.get() + " is still referenced after it left");
+        }
+    }
+
+    @Test
+    void stoppingTheLastCameraGoesIdle() throws InterruptedException {
+        for (int round = 0; round < 10; round++) {
+            churn(round);
+        }
+        if (!follower.isOnline()) {
+            follower = rejoin(follower);
+        }
+        server.dispatchCommand(follower, "autospectate");
+        server.dispatchCommand(director, "autospectate");
+        server.getScheduler().tick(ROUND_TICKS);
+
+        assertEquals(GameMode.SURVIVAL, follower.getGameMode());
+        assertEquals(GameMode.SURVIVAL, director.getGameMode());
+        long[] lifecycle = lifecycle();
+        assertEquals(0, lifecycle[0], "sessions");
+        assertEquals(0, lifecycle[1], "tracked entities");
+        assertEquals(0, lifecycle[2], "pending timers");
+        assertTrue(server.getScheduler().getPendingTasks().isEmpty(), "tasks while idle");
+
+        // Nothing to film, so nothing is looked up, however many players come and go
+        long before = CameraGeometry.getBlockLookups();
+        for (int i = 0; i < REPLACED_PER_ROUND; i++) {
+            replacePlayer();
+        }
+        server.getScheduler().tick(ROUND_TICKS);
+        assertEquals(0, CameraGeometry.getBlockLookups() - before, "block lookups while idle");
+    }
+
+    // -- Churn
+
+    /**
+     * One round: players are replaced by new ones (a few kicked), the director
+     * is pointed at a player who then leaves, the follower disconnects and comes
+     * back every few rounds, a visitor starts and stops a camera, a player goes
+     * to the nether and back and a named mob is replaced. Then the server runs
+     * for {@link #ROUND_TICKS} with everyone walking.
+     */
+    private void churn(int round) {
+        for (int i = 0; i < REPLACED_PER_ROUND; i++) {
+            replacePlayer();
+        }
+
+        FakePlayer watched = players.get(random.nextInt(players.size()));
+        server.dispatchCommand(director, "autospectate " + watched.getName());
+
+        if (round % 5 == 2) {
+            leave(follower);
+        } else if (round % 5 == 3) {
+            follower = rejoin(follower);
+        }
+
+        FakePlayer visitor = startCamera("Visitor" + round, new UUID(37, round));
+        FakePlayer traveller = players.get(random.nextInt(players.size()));
+        traveller.teleport(randomSpot(nether).toLocation());
+
+        walk(ROUND_TICKS / 2);
+
+        server.dispatchCommand(visitor, "autospectate");
+        leave(visitor);
+        players.remove(watched);
+        leave(watched);
+        players.add(joinNewPlayer());
+        traveller.teleport(randomSpot(overworld).toLocation());
+        FakeMob mob = mobs.remove(random.nextInt(mobs.size()));
+        server.despawn(mob, EntityRemoveEvent.Cause.DESPAWN);
+        spawnMob();
+
+        walk(ROUND_TICKS / 2);
+    }
+
+    private void walk(int ticks) {
+        for (int tick = 0; tick < ticks; tick++) {
+            for (FakePlayer player : players) {
+                player.moveTo(player.getX() + random.nextGaussian() * 0.2, player.getY(), player.getZ() + random.nextGaussian() * 0.2);
+            }
+            server.getScheduler().tick();
+        }
+    }
+
+    private void replacePlayer() {
+        FakePlayer player = players.remove(random.nextInt(players.size()));
+        if (random.nextInt(4) == 0) {
+            departed.add(new WeakReference<>(player));
+            server.kick(player);
+        } else {
+            leave(player);
+        }
+        players.add(joinNewPlayer());
+    }
+
+    private void leave(FakePlayer player) {
+        departed.add(new WeakReference<>(player));
+        server.quit(player);
+    }
+
+    // Coming back is a new player object with the same id, as on the server
+    private FakePlayer rejoin(FakePlayer player) {
+        FakePlayer back = Fakes.create(FakePlayer.class, player.getName(), player.getUniqueId(), overworld, 0.5,
+            (double) FakeWorld.GROUND_Y, 0.5);
+        back.setOp(true);
+        back.setGameMode(player.getGameMode());
+        server.join(back);
+        return back;
+    }
+
+    private FakePlayer joinNewPlayer() {
+        int id = nextId++;
+        Spot spot = randomSpot(overworld);
+        return server.join("Player" + id, new UUID(36, id), overworld, spot.x, spot.y, spot.z);
+    }
+
+    private FakePlayer startCamera(String name, UUID id) {
+        FakePlayer camera = server.join(name, id, overworld, 0.5, FakeWorld.GROUND_Y, 0.5);
+        camera.setOp(true);
+        server.dispatchCommand(camera, "autospectate");
+        assertEquals(GameMode.SPECTATOR, camera.getGameMode(), name + " is filming");
+        return camera;
+    }
+
+    private void spawnMob() {
+        Spot spot = randomSpot(overworld);
+        mobs.add(server.spawn(EntityType.ZOMBIE, "Boss " + nextId, new UUID(38, nextId++), overworld, spot.x, spot.y, spot.z));
+    }
+
+    private record Spot(FakeWorld world, double x, double y, double z) {
+        org.bukkit.Location toLocation() {
+            return new org.bukkit.Location(world, x, y, z);
+        }
+    }
+
+    private Spot randomSpot(FakeWorld world) {
+        return new Spot(world, (random.nextDouble() - 0.5) * AREA, FakeWorld.GROUND_Y, (random.nextDouble() - 0.5) * AREA);
+    }
+
+    // -- Checks
+
+    // Sessions, tracked entities and pending timers, from /autospectate stats
+    private long[] lifecycle() {
+        server.console().getMessages().clear();
+        server.dispatchCommand(server.console(), "autospectate stats");
+        for (String line : server.console().getMessages()) {
+            Matcher matcher = LIFECYCLE.matcher(line.replaceAll("§.", ""));
+            if (matcher.find()) {
+                return new long[] {
+                    Long.parseLong(matcher.group(1)), Long.parseLong(matcher.group(2)), Long.parseLong(matcher.group(3))
+                };
+            }
+        }
+        throw new AssertionError("No lifecycle line in " + server.console().getMessages());
+    }
+
+    private boolean allCollected() {
+        for (WeakReference<FakePlayer> reference : departed) {
+            if (reference.get() != null) return false;
+        }
+        return true;
+    }
+
+    private static double average(long[] values, int from, int to) {
+        long total = 0;
+        for (int i = from; i < to; i++) {
+            total += values[i];
+        }
+        return total / (double) (to - from);
+    }
+}
@@ -0,0 +1,43 @@
+package com.autospectator.plugin;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * {@link LongObjectMap} has to answer like a {@link HashMap} through any mix of
+ * puts and removes. Keys are drawn from a small range so probe runs collide,
+ * wrap around the table and get shifted back by removals, and the map grows
+ * from its smallest size.
+ */
+class LongObjectMapTest {
+
+    @Test
+    void behavesLikeHashMap() {
+        Random random = new Random(3);
+        LongObjectMap<String> map = new LongObjectMap<>(1);
+        Map<Long, String> expected = new HashMap<>();
+
+        for (int op = 0; op < 200_000; op++) {
+            // Region keys share their high bits, so mix those in too
+            long key = ((long) random.nextInt(4) << 48) | random.nextInt(300);
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key), map.remove(key), "remove " + key);
+            } else {
+                String value = "v" + op;
+                assertEquals(expected.put(key, value), map.put(key, value), "put " + key);
+            }
+            assertEquals(expected.size(), map.size());
+
+            long probe = ((long) random.nextInt(4) << 48) | random.nextInt(300);
+            assertEquals(expected.get(probe), map.get(probe), "get " + probe);
+        }
+        for (Map.Entry<Long, String> entry : expected.entrySet()) {
+            assertEquals(entry.getValue(), map.get(entry.getKey()));
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.autospectator.plugin;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The scalar and vector evaluators have to pick the same camera positions as
+ * the per-ray tests in {@link CameraGeometry} they replace: a candidate is
+ * skipped exactly when {@code isCameraInBlock} is true, and otherwise has
+ * {@code countBlocksInLineOfSight} blocks in the way. Batches are seeded and
+ * placed over the pillars of a {@link FakeWorld}, like cinematic and orbit
+ * searches around a player.
+ */
+class RayEvaluatorTest {
+
+    private static final int BATCHES = 2000;
+    private static final int CANDIDATES = 15;
+
+    private final FakeWorld world = Fakes.create(FakeWorld.class, "world", 7L);
+    private final RayEvaluator scalar = new ScalarRayEvaluator();
+    private final RayEvaluator vector = new VectorRayEvaluator();
+
+    @Test
+    void placesCandidatesLikeScalar() {
+        Random random = new Random(1);
+        RayBatch expected = new RayBatch(CANDIDATES);
+        RayBatch actual = new RayBatch(CANDIDATES);
+        for (int batch = 0; batch < BATCHES; batch++) {
+            double x = (random.nextDouble() - 0.5) * 2000;
+            double y = FakeWorld.GROUND_Y + random.nextDouble() * 10;
+            double z = (random.nextDouble() - 0.5) * 2000;
+            double wobble = random.nextInt(3) == 0 ? 0 : random.nextDouble() * 2;
+            fill(random, 6, 9, expected, actual);
+            scalar.place(expected, x, y, z, wobble);
+            vector.place(actual, x, y, z, wobble);
+
+            for (int i = 0; i < CANDIDATES; i++) {
+                // Vector sin and cos may round differently in the last bit
+                assertEquals(expected.getX(i), actual.getX(i), 1e-9, "x of candidate " + i);
+                assertEquals(expected.getY(i), actual.getY(i), 1e-9, "y of candidate " + i);
+                assertEquals(expected.getZ(i), actual.getZ(i), 1e-9, "z of candidate " + i);
+            }
+        }
+    }
+
+    @Test
+    void scalarMatchesCameraGeometry() {
+        assertMatchesCameraGeometry(scalar, 6, 9);
+    }
+
+    @Test
+    void vectorMatchesCameraGeometry() {
+        assertMatchesCameraGeometry(vector, 6, 9);
+    }
+
+    // Too far apart for the voxel buffer, so both go through the world directly
+    @Test
+    void widelySpreadRaysMatchCameraGeometry() {
+        assertMatchesCameraGeometry(scalar, 40, 80);
+        assertMatchesCameraGeometry(vector, 40, 80);
+    }
+
+    private void assertMatchesCameraGeometry(RayEvaluator evaluator, double minRadius, double maxRadius) {
+        Random random = new Random(2);
+        RayBatch rays = new RayBatch(CANDIDATES);
+        int skipped = 0;
+        int blocked = 0;
+        for (int batch = 0; batch < BATCHES; batch++) {
+            double x = (random.nextDouble() - 0.5) * 2000;
+            double y = FakeWorld.GROUND_Y;
+            double z = (random.nextDouble() - 0.5) * 2000;
+            double eyeY = y + 1.62;
+            fill(random, minRadius, maxRadius, rays);
+            // Placed by the scalar evaluator, so only the occlusion walk differs
+            scalar.place(rays, x, y, z, random.nextDouble());
+            evaluator.countOccluders(world, rays, x, eyeY, z);
+
+            for (int i = 0; i < CANDIDATES; i++) {
+                double cx = rays.getX(i), cy = rays.getY(i), cz = rays.getZ(i);
+                String candidate = evaluator.getName() + " candidate at " + cx + ", " + cy + ", " + cz;
+                if (CameraGeometry.isCameraInBlock(world, cx, cy, cz)) {
+                    assertEquals(-1, rays.getBlocks(i), candidate + " is inside a block");
+                    skipped++;
+                } else {
+                    int expected = CameraGeometry.countBlocksInLineOfSight(world, cx, cy, cz, x, eyeY, z);
+                    assertEquals(expected, rays.getBlocks(i), candidate);
+                    if (expected > 0) blocked++;
+                }
+            }
+        }
+        // Otherwise the terrain isn't testing anything
+        assertTrue(skipped > 0 && blocked > 0, "skipped " + skipped + ", blocked " + blocked);
+    }
+
+    // The same candidates in every batch: random angle, distance and height, like a cinematic search
+    private static void fill(Random random, double minRadius, double maxRadius, RayBatch... batches) {
+        for (RayBatch batch : batches) {
+            batch.clear();
+        }
+        for (int i = 0; i < CANDIDATES; i++) {
+            double angle = random.nextDouble() * Math.PI * 2;
+            double radius = minRadius + random.nextDouble() * (maxRadius - minRadius);
+            double height = -2 + random.nextDouble() * 8;
+            for (RayBatch batch : batches) {
+                batch.add(angle, radius, height);
+            }
+        }
+    }
+}
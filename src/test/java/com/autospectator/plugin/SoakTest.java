@@ -0,0 +1,492 @@
+package com.autospectator.plugin;
+
+import org.bukkit.GameMode;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.entity.EntityType;
+import org.bukkit.event.Event;
+import org.bukkit.event.block.BlockBreakEvent;
+import org.bukkit.event.entity.EntityDamageByEntityEvent;
+import org.bukkit.event.entity.EntityDamageEvent;
+import org.bukkit.event.entity.EntityDeathEvent;
+import org.bukkit.event.entity.EntityRemoveEvent;
+import org.bukkit.event.entity.PlayerDeathEvent;
+import org.bukkit.event.player.PlayerInteractEntityEvent;
+import org.bukkit.event.player.PlayerMoveEvent;
+import org.bukkit.inventory.EquipmentSlot;
+import org.bukkit.inventory.ItemStack;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Soak test and regression gate: runs the plugin on the fake server with a
+ * few hundred seeded players for thousands of ticks while a couple of dozen
+ * cameras, started through /autospectate, follow them. Players walk around
+ * in groups, fall, fight named mobs and bosses, die, break blocks and come and
+ * go. Every tick the test dispatches that tick's events and runs the
+ * scheduler, timing and counting the allocation of just that, and at the end
+ * prints a report and fails if a number is over its limit.
+ * <p>
+ * Sizes, seed and limits are system properties, e.g.
+ * {@code mvn test -Dtest=SoakTest -Dsoak.players=1000 -Dsoak.ticks=20000}.
+ * The default limits are loose enough for a busy CI machine and still catch a
+ * hot path that starts allocating or teleporting far more than it does now.
+ */
+class SoakTest {
+
+    private static final long SEED = Long.getLong("soak.seed", 42L);
+    private static final int PLAYERS = Integer.getInteger("soak.players", 300);
+    private static final int CAMERAS = Integer.getInteger("soak.cameras", 24);
+    private static final int MOBS = Integer.getInteger("soak.mobs", 24);
+    private static final int TICKS = Integer.getInteger("soak.ticks", 12000);
+    // Long, because on a single core the JIT compiling in the background still shows up in the tick times for a while
+    private static final int WARMUP_TICKS = Integer.getInteger("soak.warmup-ticks", 6000);
+
+    private static final double MAX_P99_MICROS = Double.parseDouble(System.getProperty("soak.max-p99-micros", "10000"));
+    private static final long MAX_BYTES_PER_TICK = Long.getLong("soak.max-bytes-per-tick", 64 * 1024);
+    // A camera that stopped moving is as much a regression as one that moves too often
+    private static final double MIN_TELEPORTS_PER_CAMERA_SECOND =
+        Double.parseDouble(System.getProperty("soak.min-teleports-per-camera-second", "1"));
+    // A teleport and an action bar every tick is the most the camera loop sends
+    private static final double MAX_PACKETS_PER_CAMERA_SECOND =
+        Double.parseDouble(System.getProperty("soak.max-packets-per-camera-second", "40"));
+
+    private static final int GROUP_SIZE = 6;
+    private static final double WALK_SPEED = 0.2; // Blocks per tick, about walking speed
+    private static final double GROUP_RADIUS = 12;
+    private static final double AREA = 600;
+    private static final int RESPAWN_TICKS = 60;
+    private static final int OFFLINE_TICKS = 400;
+    private static final Pattern NUMBER_AFTER = Pattern.compile("(Teleports|packets|Sessions|tracked entities|pending timers) (\\d+)");
+
+    @TempDir
+    Path dataFolder;
+
+    private final Random random = new Random(SEED);
+    private final List<Walker> walkers = new ArrayList<>();
+    private final List<FakeMob> mobs = new ArrayList<>();
+    private final List<FakePlayer> cameras = new ArrayList<>();
+    private final List<Location> cameraStarts = new ArrayList<>();
+    private final List<Event> events = new ArrayList<>();
+    private final List<Runnable> actions = new ArrayList<>();
+    private FakeServer server;
+    private Main plugin;
+    private FakeWorld overworld;
+    private FakeWorld nether;
+    private double[] groupX, groupZ, groupHeading;
+    private FakeWorld[] groupWorld;
+    private int mobIds = 0;
+
+    // One synthetic player; the FakePlayer is replaced when it rejoins, like on the server
+    private static final class Walker {
+        final int group;
+        FakePlayer player;
+        double heading;
+        int fallTicks = 0;
+        int respawnTicks = 0;
+        int offlineTicks = 0;
+
+        Walker(int group, double heading) {
+            this.group = group;
+            this.heading = heading;
+        }
+    }
+
+    @AfterEach
+    void stopServer() {
+        if (plugin != null && plugin.isEnabled()) {
+            server.disable(plugin);
+        }
+    }
+
+    @Test
+    void soak() throws InterruptedException {
+        server = FakeServer.start();
+        overworld = server.createWorld("world", SEED);
+        nether = server.createWorld("world_nether", SEED + 1);
+
+        plugin = server.load(dataFolder.toFile());
+        plugin.getConfig().set("metrics.enabled", true);
+        plugin.getConfig().set("metrics.window-ticks", TICKS);
+        plugin.getConfig().set("metrics.random-seed", SEED);
+        server.enable(plugin);
+        // The session file is read on another thread and applied on the next tick
+        server.getScheduler().awaitForeignTasks(1, 5000);
+        server.getScheduler().tick();
+
+        populate();
+        startCameras();
+
+        int measured = TICKS - WARMUP_TICKS;
+        long[] tickNanos = new long[measured];
+        long[] tickBytes = new long[measured];
+        long[] teleportsBefore = new long[CAMERAS];
+        long[] packetsBefore = new long[CAMERAS];
+        long maxTeleportsPerTick = 0;
+        long dispatched = 0;
+        var threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().threadId();
+
+        for (int tick = 0; tick < TICKS; tick++) {
+            if (tick == WARMUP_TICKS) {
+                // The plugin's own metrics cover the same ticks as the test's
+                server.dispatchCommand(server.console(), "autospectate stats reset");
+                for (int i = 0; i < CAMERAS; i++) {
+                    teleportsBefore[i] = cameras.get(i).getTeleports();
+                    packetsBefore[i] = cameras.get(i).getTeleports() + cameras.get(i).getActionBars();
+                }
+            }
+            simulate(tick);
+            long[] teleports = new long[CAMERAS];
+            for (int i = 0; i < CAMERAS; i++) {
+                teleports[i] = cameras.get(i).getTeleports();
+            }
+
+            long bytes = threads.getThreadAllocatedBytes(threadId);
+            long start = System.nanoTime();
+            for (int i = 0; i < events.size(); i++) {
+                server.getPluginManager().callEvent(events.get(i));
+            }
+            for (int i = 0; i < actions.size(); i++) {
+                actions.get(i).run();
+            }
+            server.getScheduler().tick();
+            long nanos = System.nanoTime() - start;
+            bytes = threads.getThreadAllocatedBytes(threadId) - bytes;
+
+            dispatched += events.size() + actions.size();
+            for (int i = 0; i < CAMERAS; i++) {
+                maxTeleportsPerTick = Math.max(maxTeleportsPerTick, cameras.get(i).getTeleports() - teleports[i]);
+            }
+            if (tick >= WARMUP_TICKS) {
+                tickNanos[tick - WARMUP_TICKS] = nanos;
+                tickBytes[tick - WARMUP_TICKS] = bytes;
+            }
+        }
+
+        server.console().getMessages().clear();
+        server.dispatchCommand(server.console(), "autospectate stats");
+        List<String> stats = plain(server.console().getMessages());
+
+        double seconds = measured / 20.0;
+        long teleports = 0;
+        long packets = 0;
+        double minTeleportRate = Double.MAX_VALUE;
+        double maxPacketRate = 0;
+        for (int i = 0; i < CAMERAS; i++) {
+            FakePlayer camera = cameras.get(i);
+            long cameraTeleports = camera.getTeleports() - teleportsBefore[i];
+            long cameraPackets = camera.getTeleports() + camera.getActionBars() - packetsBefore[i];
+            teleports += cameraTeleports;
+            packets += cameraPackets;
+            minTeleportRate = Math.min(minTeleportRate, cameraTeleports / seconds);
+            maxPacketRate = Math.max(maxPacketRate, cameraPackets / seconds);
+        }
+        Arrays.sort(tickNanos);
+        long totalBytes = 0;
+        long maxBytes = 0;
+        for (long bytes : tickBytes) {
+            totalBytes += bytes;
+            maxBytes = Math.max(maxBytes, bytes);
+        }
+        double p99Micros = percentile(tickNanos, 0.99) / 1000.0;
+        long bytesPerTick = totalBytes / measured;
+
+        System.out.println("Soak: " + PLAYERS + " players, " + CAMERAS + " cameras, " + MOBS + " mobs, " +
+            TICKS + " ticks (" + WARMUP_TICKS + " warm-up), seed " + SEED + ", " + dispatched + " events and actions");
+        System.out.printf("  Tick time p50 %.1fµs p95 %.1fµs p99 %.1fµs max %.1fµs (limit p99 %.0fµs)%n",
+            percentile(tickNanos, 0.50) / 1000.0, percentile(tickNanos, 0.95) / 1000.0, p99Micros,
+            tickNanos[measured - 1] / 1000.0, MAX_P99_MICROS);
+        System.out.printf("  Allocated %d B/tick, max %d B (limit %d B/tick)%n", bytesPerTick, maxBytes, MAX_BYTES_PER_TICK);
+        System.out.printf("  Teleports %d, lowest %.1f/s per camera (limit %.1f), at most %d per camera per tick%n",
+            teleports, minTeleportRate, MIN_TELEPORTS_PER_CAMERA_SECOND, maxTeleportsPerTick);
+        System.out.printf("  Packets %d, highest %.1f/s per camera (limit %.1f)%n", packets, maxPacketRate, MAX_PACKETS_PER_CAMERA_SECOND);
+        System.out.println("  /autospectate stats:");
+        stats.forEach(line -> System.out.println("    " + line));
+
+        // What the plugin measured about itself has to match what the server saw
+        assertEquals(teleports, number(stats, "Teleports"), "teleports counted by the plugin");
+        assertEquals(packets, number(stats, "packets"), "packets counted by the plugin");
+
+        assertTrue(p99Micros <= MAX_P99_MICROS, "p99 tick time " + p99Micros + "µs over " + MAX_P99_MICROS + "µs");
+        assertTrue(bytesPerTick <= MAX_BYTES_PER_TICK, bytesPerTick + " B/tick over " + MAX_BYTES_PER_TICK);
+        assertTrue(maxTeleportsPerTick <= 1, "a camera was teleported " + maxTeleportsPerTick + " times in one tick");
+        assertTrue(minTeleportRate >= MIN_TELEPORTS_PER_CAMERA_SECOND, "a camera moved " + minTeleportRate + " times/s");
+        assertTrue(maxPacketRate <= MAX_PACKETS_PER_CAMERA_SECOND, "a camera got " + maxPacketRate + " packets/s");
+
+        stopCameras();
+    }
+
+    // -- Setup
+
+    private void populate() {
+        int groups = (PLAYERS + GROUP_SIZE - 1) / GROUP_SIZE;
+        groupX = new double[groups];
+        groupZ = new double[groups];
+        groupHeading = new double[groups];
+        groupWorld = new FakeWorld[groups];
+        for (int g = 0; g < groups; g++) {
+            groupX[g] = (random.nextDouble() - 0.5) * AREA;
+            groupZ[g] = (random.nextDouble() - 0.5) * AREA;
+            groupHeading[g] = random.nextDouble() * 2 * Math.PI;
+            // Some groups play in the nether, so cameras change worlds
+            groupWorld[g] = g % 10 == 9 ? nether : overworld;
+        }
+        for (int i = 0; i < PLAYERS; i++) {
+            Walker walker = new Walker(i / GROUP_SIZE, random.nextDouble() * 2 * Math.PI);
+            walkers.add(walker);
+            walker.player = server.join("Player" + i, new UUID(SEED, i), groupWorld[walker.group],
+                groupX[walker.group] + random.nextGaussian() * 4, FakeWorld.GROUND_Y,
+                groupZ[walker.group] + random.nextGaussian() * 4);
+        }
+        for (int i = 0; i < MOBS; i++) {
+            spawnMob();
+        }
+    }
+
+    // A third of the mobs are named, a few are bosses, the rest are plain zombies nobody tracks
+    private void spawnMob() {
+        int group = random.nextInt(groupX.length);
+        int id = mobIds++;
+        EntityType type = id % 8 == 7 ? EntityType.WITHER : EntityType.ZOMBIE;
+        String name = id % 3 == 0 ? "Boss " + id : null;
+        mobs.add(server.spawn(type, name, new UUID(~SEED, id), groupWorld[group],
+            groupX[group] + random.nextGaussian() * 4, FakeWorld.GROUND_Y, groupZ[group] + random.nextGaussian() * 4));
+    }
+
+    private void startCameras() {
+        for (int i = 0; i < CAMERAS; i++) {
+            FakePlayer camera = server.join("Camera" + i, new UUID(~SEED, -1 - i), overworld, i * 2.5, FakeWorld.GROUND_Y, 0.5);
+            camera.setOp(true);
+            cameras.add(camera);
+            cameraStarts.add(camera.getLocation());
+            server.dispatchCommand(camera, "autospectate");
+            assertEquals(GameMode.SPECTATOR, camera.getGameMode(), "/autospectate turns the camera on");
+            switch (i % 4) {
+                case 1 -> server.dispatchCommand(camera, "autospectate perspective cinematic");
+                case 2 -> server.dispatchCommand(camera, "autospectate Player7");
+                case 3 -> server.dispatchCommand(camera, "autospectate time 5");
+                default -> {
+                }
+            }
+        }
+    }
+
+    private void stopCameras() throws InterruptedException {
+        for (FakePlayer camera : cameras) {
+            server.dispatchCommand(camera, "autospectate");
+        }
+        // Long enough for the debounced session save to run
+        server.getScheduler().tick(200);
+        server.console().getMessages().clear();
+        server.dispatchCommand(server.console(), "autospectate stats");
+        List<String> stats = plain(server.console().getMessages());
+        assertEquals(0, number(stats, "Sessions"), "sessions left after stopping");
+        assertEquals(0, number(stats, "tracked entities"), "entities tracked after stopping");
+        assertEquals(0, number(stats, "pending timers"), "timers left after stopping");
+
+        for (int i = 0; i < CAMERAS; i++) {
+            FakePlayer camera = cameras.get(i);
+            assertEquals(GameMode.SURVIVAL, camera.getGameMode(), camera.getName() + "'s game mode");
+            assertEquals(cameraStarts.get(i), camera.getLocation(), camera.getName() + " is back where it started");
+            for (FakePlayer other : server.getOnlinePlayers()) {
+                assertFalse(camera.isHiddenFrom(other), camera.getName() + " is still hidden from " + other.getName());
+            }
+        }
+
+        server.disable(plugin);
+        assertTrue(server.getScheduler().getPendingTasks().isEmpty(), "tasks left after disabling");
+    }
+
+    // -- Simulation
+
+    /**
+     * Moves everyone one tick and fills {@link #events} and {@link #actions}
+     * with what the server would fire for it. Events are built here, so the
+     * measured part of the tick only covers the plugin's handlers.
+     */
+    private void simulate(int tick) {
+        events.clear();
+        actions.clear();
+
+        for (int g = 0; g < groupX.length; g++) {
+            groupHeading[g] += random.nextGaussian() * 0.05;
+            groupX[g] += Math.cos(groupHeading[g]) * WALK_SPEED * 0.5;
+            groupZ[g] += Math.sin(groupHeading[g]) * WALK_SPEED * 0.5;
+        }
+
+        for (Walker walker : walkers) {
+            FakePlayer player = walker.player;
+            if (walker.offlineTicks > 0) {
+                if (--walker.offlineTicks == 0) {
+                    FakePlayer rejoined = Fakes.create(FakePlayer.class, player.getName(), player.getUniqueId(),
+                        groupWorld[walker.group], groupX[walker.group], (double) FakeWorld.GROUND_Y, groupZ[walker.group]);
+                    walker.player = rejoined;
+                    actions.add(() -> server.join(rejoined));
+                }
+                continue;
+            }
+            if (walker.respawnTicks > 0) {
+                if (--walker.respawnTicks == 0) {
+                    player.setDead(false);
+                    player.moveTo(groupX[walker.group], FakeWorld.GROUND_Y, groupZ[walker.group]);
+                }
+                continue;
+            }
+            if (random.nextInt(6000) == 0) {
+                walker.offlineTicks = OFFLINE_TICKS;
+                actions.add(random.nextInt(4) == 0 ? () -> server.kick(player) : () -> server.quit(player));
+                continue;
+            }
+            walk(walker, player);
+            fight(walker, player);
+            if (random.nextInt(600) == 0) {
+                // Breaks the block in front of them
+                events.add(new BlockBreakEvent(((FakeWorld) player.getWorld()).blockAt(
+                    (int) Math.floor(player.getX() + Math.cos(walker.heading)), FakeWorld.GROUND_Y - 1,
+                    (int) Math.floor(player.getZ() + Math.sin(walker.heading))), player));
+            }
+        }
+
+        for (int i = 0; i < mobs.size(); i++) {
+            FakeMob mob = mobs.get(i);
+            mob.moveTo(mob.getX() + random.nextGaussian() * 0.1, mob.getY(), mob.getZ() + random.nextGaussian() * 0.1);
+            if (random.nextInt(3000) == 0) {
+                mobs.remove(i--);
+                actions.add(() -> {
+                    mob.setDead(true);
+                    server.getPluginManager().callEvent(new EntityDeathEvent(mob, server.damageSource(), new ArrayList<>()));
+                    server.despawn(mob, EntityRemoveEvent.Cause.DEATH);
+                    spawnMob();
+                });
+            }
+        }
+        // Someone names a zombie now and then
+        if (tick % 500 == 250) {
+            renameMob();
+        }
+        // Cameras fly below the world sometimes
+        if (tick % 400 == 0) {
+            FakePlayer camera = cameras.get(random.nextInt(CAMERAS));
+            events.add(new EntityDamageEvent(camera, EntityDamageEvent.DamageCause.VOID, server.damageSource(), 4.0));
+        }
+        // Half way through the forced camera goes back to picking its own targets
+        if (tick == TICKS / 2 && CAMERAS > 2) {
+            actions.add(() -> server.dispatchCommand(cameras.get(2), "autospectate auto"));
+        }
+    }
+
+    // Walks around the group centre, now and then off a ledge
+    private void walk(Walker walker, FakePlayer player) {
+        double fromX = player.getX(), fromY = player.getY(), fromZ = player.getZ();
+        double dx = groupX[walker.group] - fromX;
+        double dz = groupZ[walker.group] - fromZ;
+        if (dx * dx + dz * dz > GROUP_RADIUS * GROUP_RADIUS) {
+            walker.heading = Math.atan2(dz, dx);
+        } else {
+            walker.heading += random.nextGaussian() * 0.3;
+        }
+        double y = fromY;
+        if (walker.fallTicks > 0) {
+            walker.fallTicks--;
+            y = walker.fallTicks == 0 ? FakeWorld.GROUND_Y : fromY - 0.6;
+        } else if (random.nextInt(5000) == 0) {
+            walker.fallTicks = 10 + random.nextInt(30);
+            y = FakeWorld.GROUND_Y + walker.fallTicks * 0.6;
+        }
+        player.moveTo(fromX + Math.cos(walker.heading) * WALK_SPEED, y, fromZ + Math.sin(walker.heading) * WALK_SPEED);
+
+        if (walker.fallTicks > 0) {
+            player.setFallDistance((float) (y < fromY ? player.getFallDistance() + (fromY - y) : 0));
+        }
+        events.add(new PlayerMoveEvent(player,
+            new Location(player.getWorld(), fromX, fromY, fromZ), player.getLocation()));
+
+        if (walker.fallTicks == 0 && y < fromY) {
+            double damage = Math.max(0, player.getFallDistance() - 3);
+            player.setFallDistance(0);
+            if (damage > 0) {
+                damage(walker, player, new EntityDamageEvent(player, EntityDamageEvent.DamageCause.FALL, server.damageSource(), damage));
+            }
+        }
+    }
+
+    private void fight(Walker walker, FakePlayer player) {
+        if (random.nextInt(1500) != 0 || mobs.isEmpty()) return;
+        FakeMob mob = mobs.get(random.nextInt(mobs.size()));
+        events.add(new EntityDamageByEntityEvent(player, mob, EntityDamageEvent.DamageCause.ENTITY_ATTACK,
+            server.damageSource(), 1 + random.nextInt(6)));
+        damage(walker, player, new EntityDamageByEntityEvent(mob, player, EntityDamageEvent.DamageCause.ENTITY_ATTACK,
+            server.damageSource(), 1 + random.nextInt(8)));
+    }
+
+    // Fires the damage, then takes the health and fires the death if the event wasn't cancelled
+    private void damage(Walker walker, FakePlayer player, EntityDamageEvent event) {
+        actions.add(() -> {
+            server.getPluginManager().callEvent(event);
+            if (event.isCancelled() || player.isDead()) return;
+            double health = player.getHealth() - event.getFinalDamage();
+            if (health > 0) {
+                player.setHealth(health);
+                return;
+            }
+            player.setHealth(0);
+            player.setDead(true);
+            walker.respawnTicks = RESPAWN_TICKS;
+            server.getPluginManager().callEvent(new PlayerDeathEvent(player, server.damageSource(), new ArrayList<>(), 0,
+                player.getName() + " died"));
+        });
+    }
+
+    private void renameMob() {
+        for (FakeMob mob : mobs) {
+            if (mob.getCustomName() != null) continue;
+            Walker walker = walkers.get(random.nextInt(walkers.size()));
+            if (walker.offlineTicks > 0 || walker.respawnTicks > 0) return;
+            FakePlayer player = walker.player;
+            player.getInventory().setItem(EquipmentSlot.HAND, new ItemStack(Material.NAME_TAG));
+            events.add(new PlayerInteractEntityEvent(player, mob, EquipmentSlot.HAND));
+            actions.add(() -> mob.setCustomName("Named " + mob.getUniqueId().getLeastSignificantBits()));
+            return;
+        }
+    }
+
+    // -- Report
+
+    private static double percentile(long[] sorted, double p) {
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(p * sorted.length) - 1)];
+    }
+
+    private static List<String> plain(List<String> lines) {
+        List<String> plain = new ArrayList<>();
+        for (String line : lines) {
+            plain.add(line.replaceAll("§.", ""));
+        }
+        return plain;
+    }
+
+    private static long number(List<String> lines, String label) {
+        for (String line : lines) {
+            Matcher matcher = NUMBER_AFTER.matcher(line);
+            while (matcher.find()) {
+                if (matcher.group(1).equals(label)) return Long.parseLong(matcher.group(2));
+            }
+        }
+        throw new AssertionError("No " + label + " in " + lines);
+    }
+}